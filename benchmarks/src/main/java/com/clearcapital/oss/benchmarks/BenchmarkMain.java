@@ -0,0 +1,26 @@
+package com.clearcapital.oss.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the usual JMH command line, always adding the GC profiler so that allocation rate
+ * (gc.alloc.rate.norm, in bytes per operation) is reported next to throughput.
+ * 
+ * <pre>
+ * java -jar target/benchmarks.jar                      # everything
+ * java -jar target/benchmarks.jar ReflectionHelpers    # one suite
+ * </pre>
+ */
+public class BenchmarkMain {
+
+    public static void main(final String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        Options options = new OptionsBuilder().parent(commandLine).addProfiler(GCProfiler.class).build();
+        new Runner(options).run();
+    }
+
+}
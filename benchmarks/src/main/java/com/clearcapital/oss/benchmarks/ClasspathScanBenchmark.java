@@ -0,0 +1,66 @@
+package com.clearcapital.oss.benchmarks;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reflections.Reflections;
+import org.reflections.scanners.SubTypesScanner;
+import org.reflections.scanners.TypeAnnotationsScanner;
+import org.reflections.util.ClasspathHelper;
+
+import com.clearcapital.oss.java.ReflectionHelpers;
+
+/**
+ * Cold multi-package scans, as at application startup: the cache is cleared before every call.
+ * {@code sequential} is the one-package-after-another scan that getReflections used to do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ClasspathScanBenchmark {
+
+    private static final List<String> PACKAGES = Arrays.asList("com.clearcapital", "com.fasterxml.jackson.core",
+            "com.fasterxml.jackson.databind", "com.fasterxml.jackson.datatype", "com.google.common",
+            "org.apache.commons.collections4", "org.reflections", "javassist", "org.openjdk.jmh");
+
+    @Setup
+    public void setUp() {
+        ReflectionHelpers.clearReflectionsCache();
+    }
+
+    @Benchmark
+    public Reflections sequential() {
+        Reflections reflections = null;
+        for (String packageName : PACKAGES) {
+            Reflections packageReflections = new Reflections(ClasspathHelper.forPackage(packageName),
+                    new TypeAnnotationsScanner(), new SubTypesScanner());
+            if (reflections == null) {
+                reflections = packageReflections;
+            } else {
+                reflections.merge(packageReflections);
+            }
+        }
+        return reflections;
+    }
+
+    @Benchmark
+    public Reflections getReflections() {
+        ReflectionHelpers.clearReflectionsCache();
+        return ReflectionHelpers.getReflections(PACKAGES);
+    }
+
+}
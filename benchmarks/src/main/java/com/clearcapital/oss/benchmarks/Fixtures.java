@@ -0,0 +1,83 @@
+package com.clearcapital.oss.benchmarks;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Object graphs shared by the benchmarks. Fields are public so that Jackson can bind them without getters.
+ */
+public class Fixtures {
+
+    public enum Color {
+        RED,
+        GREEN,
+        BLUE
+    }
+
+    public static class Address {
+
+        public String street;
+        public String city;
+        public String zip;
+        public List<String> lines;
+    }
+
+    public static class Person {
+
+        public String name;
+        public int age;
+        public Long id;
+        public Address address;
+        public Map<String, String> attributes;
+        public Map<Color, String> favorites;
+        public Map<Integer, String> ranks;
+    }
+
+    public static class Directory {
+
+        public String title;
+        public List<Person> people;
+    }
+
+    public static Person person(final int i) {
+        Person person = new Person();
+        person.name = "person" + i;
+        person.age = 20 + i % 50;
+        person.id = 1000000000000L + i;
+
+        person.address = new Address();
+        person.address.street = i + " Main Street";
+        person.address.city = "Reno";
+        person.address.zip = "89501";
+        person.address.lines = new ArrayList<>();
+        person.address.lines.add("Suite " + i);
+        person.address.lines.add("Building 2");
+
+        person.attributes = new HashMap<>();
+        for (int j = 0; j < 8; j++) {
+            person.attributes.put("attribute" + j, "value" + j);
+        }
+        person.favorites = new EnumMap<>(Color.class);
+        person.favorites.put(Color.RED, "apple");
+        person.favorites.put(Color.BLUE, "sky");
+        person.ranks = new HashMap<>();
+        for (int j = 0; j < 8; j++) {
+            person.ranks.put(j, "rank" + j);
+        }
+        return person;
+    }
+
+    public static Directory directory(final int size) {
+        Directory directory = new Directory();
+        directory.title = "directory of " + size;
+        directory.people = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            directory.people.add(person(i));
+        }
+        return directory;
+    }
+
+}
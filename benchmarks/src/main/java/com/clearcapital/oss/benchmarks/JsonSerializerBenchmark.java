@@ -0,0 +1,135 @@
+package com.clearcapital.oss.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.clearcapital.oss.java.ReflectionPathSet;
+import com.clearcapital.oss.java.exceptions.DeserializingException;
+import com.clearcapital.oss.java.exceptions.ReflectionPathException;
+import com.clearcapital.oss.java.exceptions.SerializingException;
+import com.clearcapital.oss.json.JsonCodec;
+import com.clearcapital.oss.json.JsonPathExtractor;
+import com.clearcapital.oss.json.JsonSerializer;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializerBenchmark {
+
+    private JsonSerializer serializer;
+    private JsonCodec<Fixtures.Person> personCodec;
+    private Fixtures.Person smallObject;
+    private Fixtures.Directory largeObject;
+    private Fixtures.Directory largeObjectChanged;
+    private String smallJson;
+    private String largeJson;
+    private JsonPathExtractor largeExtractor;
+    private JsonCodec<Fixtures.Directory> largeProjection;
+
+    @Setup
+    public void setUp() throws SerializingException, ReflectionPathException {
+        serializer = JsonSerializer.getInstance();
+        personCodec = serializer.getCodec(Fixtures.Person.class);
+        smallObject = Fixtures.person(1);
+        largeObject = Fixtures.directory(1000);
+        largeObjectChanged = Fixtures.directory(1000);
+        largeObjectChanged.title = "Changed";
+        smallJson = serializer.getStringRepresentation(smallObject);
+        largeJson = serializer.getStringRepresentation(largeObject);
+        largeExtractor = serializer.getPathExtractor(ReflectionPathSet.compile(Arrays.asList(Arrays.asList("title"),
+                Arrays.asList("people", "{10}", "address", "city"))));
+        largeProjection = serializer.getProjection(Fixtures.Directory.class, ReflectionPathSet.compile(Arrays.asList(
+                Arrays.asList("title"), Arrays.asList("people", "{0}", "name"))));
+    }
+
+    @Benchmark
+    public String writeSmall() throws SerializingException {
+        return serializer.getStringRepresentation(smallObject);
+    }
+
+    @Benchmark
+    public String writeLarge() throws SerializingException {
+        return serializer.getStringRepresentation(largeObject);
+    }
+
+    /**
+     * The merge patch for one changed field of the document {@code writeLarge} writes in full.
+     */
+    @Benchmark
+    public String writeLargeMergePatch() throws SerializingException {
+        return serializer.getMergePatch(largeObject, largeObjectChanged);
+    }
+
+    @Benchmark
+    public Fixtures.Person readSmall() throws DeserializingException {
+        return serializer.getObject(smallJson, Fixtures.Person.class);
+    }
+
+    @Benchmark
+    public Fixtures.Directory readLarge() throws DeserializingException {
+        return serializer.getObject(largeJson, Fixtures.Directory.class);
+    }
+
+    /**
+     * Two values out of the document {@code readLarge} binds in full.
+     */
+    @Benchmark
+    public Object[] extractLarge() throws DeserializingException {
+        return largeExtractor.getValues(largeJson);
+    }
+
+    /**
+     * Binds only the title and the people's names out of the document {@code readLarge} binds in full.
+     */
+    @Benchmark
+    public Fixtures.Directory readLargeProjection() throws DeserializingException {
+        return largeProjection.getObject(largeJson);
+    }
+
+    @Benchmark
+    public String writeSmallCodec() throws SerializingException {
+        return personCodec.getStringRepresentation(smallObject);
+    }
+
+    @Benchmark
+    public ByteBuffer writeSmallPooled() throws SerializingException {
+        return serializer.getPooledRepresentation(smallObject);
+    }
+
+    @Benchmark
+    public byte[] writeSmallBytes() throws SerializingException {
+        return serializer.getByteRepresentation(smallObject);
+    }
+
+    @Benchmark
+    public Fixtures.Person readSmallCodec() throws DeserializingException {
+        return personCodec.getObject(smallJson);
+    }
+
+    /**
+     * Includes the classpath scan for {@code @JsonTypeName} types, so it is measured in milliseconds.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2, time = 2)
+    @Measurement(iterations = 3, time = 2)
+    public JsonSerializer construct() {
+        return new JsonSerializer();
+    }
+
+}
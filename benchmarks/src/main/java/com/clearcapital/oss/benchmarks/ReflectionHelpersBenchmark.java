@@ -0,0 +1,111 @@
+package com.clearcapital.oss.benchmarks;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.clearcapital.oss.java.CompiledReflectionPath;
+import com.clearcapital.oss.java.ReflectionHelpers;
+import com.clearcapital.oss.java.exceptions.ReflectionPathException;
+import com.clearcapital.oss.json.JsonSerializer;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReflectionHelpersBenchmark {
+
+    private static final List<String> SHALLOW_PATH = Collections.singletonList("name");
+    private static final List<String> DEEP_PATH = Arrays.asList("people", "{3}", "address", "lines", "{1}");
+    private static final List<String> STRING_KEY_PATH = Arrays.asList("attributes", "[attribute5]");
+    private static final List<String> ENUM_KEY_PATH = Arrays.asList("favorites", "[BLUE]");
+    private static final List<String> INTEGER_KEY_PATH = Arrays.asList("ranks", "[5]");
+    private static final List<String> AGE_PATH = Arrays.asList("people", "{3}", "age");
+
+    // each fork is a JVM of its own, so the process-wide switch only affects its own runs.
+    @Param({ "false", "true" })
+    public boolean generatedAccessors;
+
+    private Fixtures.Directory directory;
+    private Fixtures.Person person;
+    private CompiledReflectionPath compiledDeepPath;
+    private CompiledReflectionPath compiledAgePath;
+    private int counter;
+
+    @Setup
+    public void setUp() throws ReflectionPathException {
+        if (generatedAccessors) {
+            ReflectionHelpers.enableGeneratedAccessors(0);
+        }
+        directory = Fixtures.directory(10);
+        person = Fixtures.person(1);
+        compiledDeepPath = CompiledReflectionPath.compile(DEEP_PATH);
+        compiledAgePath = CompiledReflectionPath.compile(AGE_PATH);
+    }
+
+    @Benchmark
+    public Object getFieldValueSingle() throws ReflectionPathException {
+        return ReflectionHelpers.getFieldValue(person, "name");
+    }
+
+    @Benchmark
+    public Object getFieldValueShallowPath() throws ReflectionPathException {
+        return ReflectionHelpers.getFieldValue(person, SHALLOW_PATH);
+    }
+
+    @Benchmark
+    public Object getFieldValueDeepPath() throws ReflectionPathException {
+        return ReflectionHelpers.getFieldValue(directory, DEEP_PATH);
+    }
+
+    @Benchmark
+    public Object compiledDeepPath() throws ReflectionPathException {
+        return compiledDeepPath.getValue(directory);
+    }
+
+    @Benchmark
+    public int getIntValuePath() throws ReflectionPathException {
+        return ReflectionHelpers.getIntValue(directory, AGE_PATH);
+    }
+
+    @Benchmark
+    public int compiledGetInt() throws ReflectionPathException {
+        return compiledAgePath.getInt(directory);
+    }
+
+    @Benchmark
+    public Object getFieldValueStringKey() throws ReflectionPathException {
+        return ReflectionHelpers.getFieldValue(person, STRING_KEY_PATH);
+    }
+
+    @Benchmark
+    public Object getFieldValueEnumKey() throws ReflectionPathException {
+        return ReflectionHelpers.getFieldValue(person, ENUM_KEY_PATH, JsonSerializer.getInstance());
+    }
+
+    @Benchmark
+    public Object getFieldValueIntegerKey() throws ReflectionPathException {
+        return ReflectionHelpers.getFieldValue(person, INTEGER_KEY_PATH, JsonSerializer.getInstance());
+    }
+
+    @Benchmark
+    public Object setFieldValue() throws ReflectionPathException {
+        return ReflectionHelpers.setFieldValue(person, "age", ++counter);
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.clearcapital.oss.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.clearcapital.oss.java.StackHelpers;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StackHelpersBenchmark {
+
+    @Benchmark
+    public String getRelativeStackLocation() {
+        return StackHelpers.getRelativeStackLocation();
+    }
+
+    @Benchmark
+    public String getRelativeStackLocationDeeper() {
+        return StackHelpers.getRelativeStackLocation(2);
+    }
+
+}
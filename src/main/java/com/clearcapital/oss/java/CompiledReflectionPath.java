@@ -0,0 +1,373 @@
+package com.clearcapital.oss.java;
+
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import com.clearcapital.oss.java.exceptions.ReflectionPathException;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A reflection path which has been parsed once into an immutable list of {@link PathStep}s, so that it can be
+ * evaluated against many objects without re-parsing any entry or looking up any field again.
+ * <p/>
+ * The path syntax is the same as that of {@link ReflectionHelpers#getFieldValue(Object, Collection, Serializer)}.
+ * Instances are thread-safe and intended to be compiled once and kept, e.g., in a static field.
+ */
+public final class CompiledReflectionPath {
+
+    private final List<String> reflectionPath;
+    private final List<PathStep> steps;
+
+    private CompiledReflectionPath(final List<String> reflectionPath, final List<PathStep> steps) {
+        this.reflectionPath = reflectionPath;
+        this.steps = steps;
+    }
+
+    /**
+     * Parses {@code reflectionPath} into a reusable path. Entries after a "." are ignored, exactly as they are by
+     * {@link ReflectionHelpers#getFieldValue(Object, Collection, Serializer)}. An empty path selects the source object
+     * itself.
+     *
+     * @throws ReflectionPathException
+     *             if {@code reflectionPath} is null or contains a null entry
+     */
+    public static CompiledReflectionPath compile(final Collection<String> reflectionPath)
+            throws ReflectionPathException {
+        if (reflectionPath == null) {
+            throw new ReflectionPathException("null reflectionPath is not supported");
+        }
+        if (reflectionPath.contains(null)) {
+            throw new ReflectionPathException("null entry in reflectionPath is not supported");
+        }
+        ImmutableList.Builder<PathStep> steps = ImmutableList.builder();
+        for (String pathEntry : reflectionPath) {
+            if (pathEntry.equals(".")) {
+                // NOTE: a dot before the end skips any remaining entries
+                break;
+            }
+            steps.add(PathStep.parse(pathEntry));
+        }
+        return new CompiledReflectionPath(ImmutableList.copyOf(reflectionPath), steps.build());
+    }
+
+    /**
+     * @return the entries this path was compiled from.
+     */
+    public List<String> getReflectionPath() {
+        return reflectionPath;
+    }
+
+    /**
+     * @return the parsed steps of this path, not including a terminating "." or anything after it.
+     */
+    public List<PathStep> getSteps() {
+        return steps;
+    }
+
+    /**
+     * Evaluates this path against {@code sourceObject}, using the default serializer for non-String map keys.
+     *
+     * @see #getValue(Object, Serializer)
+     */
+    public Object getValue(final Object sourceObject) throws ReflectionPathException {
+        return getValue(sourceObject, ReflectionHelpers.defaultSerializer);
+    }
+
+    /**
+     * Evaluates this path against {@code sourceObject}. If any step along the way yields null, the result is null.
+     *
+     * @param sourceObject
+     *            the object to start looking in
+     * @param serializer
+     *            used to convert map key text into non-String map keys
+     * @return the value selected by this path
+     * @throws ReflectionPathException
+     *             if any portion of the path is invalid, not declared or not accessible
+     */
+    public Object getValue(final Object sourceObject, final Serializer serializer) throws ReflectionPathException {
+        Object value = sourceObject;
+        for (int i = 0; i < steps.size() && value != null; i++) {
+            value = steps.get(i).getValue(value, serializer);
+        }
+        return value;
+    }
+
+    /**
+     * Writes {@code value} at the end of this path, starting from {@code targetObject} and using the default
+     * serializer for non-String map keys.
+     *
+     * @see #setValue(Object, Object, Serializer)
+     */
+    public void setValue(final Object targetObject, final Object value) throws ReflectionPathException {
+        setValue(targetObject, value, ReflectionHelpers.defaultSerializer);
+    }
+
+    /**
+     * Writes {@code value} at the end of this path, starting from {@code targetObject}. Every step but the last is
+     * read exactly as {@link #getValue(Object, Serializer)} reads it; the last step then sets a field, puts into a
+     * {@link java.util.Map}, or sets an element of a {@link List} or array. A Map key is converted to the class of the
+     * keys already in the map; if it is empty, to the key type declared by the field holding the map, or to String if
+     * the path doesn't reach the map through a field.
+     *
+     * @throws ReflectionPathException
+     *             if the path is empty, invalid or passes through null, or if its last step can't be written
+     */
+    public void setValue(final Object targetObject, final Object value, final Serializer serializer)
+            throws ReflectionPathException {
+        PathStep leaf = getLeaf();
+        Object container = getLeafContainer(targetObject, serializer);
+        if (leaf instanceof PathStep.MapKeyStep && ((PathStep.MapKeyStep) leaf).needsDeclaredType(container)) {
+            ((PathStep.MapKeyStep) leaf).setValue(container, value, serializer, getLeafContainerType(targetObject,
+                    serializer));
+            return;
+        }
+        leaf.setValue(container, value, serializer);
+    }
+
+    /**
+     * Evaluates this path against every element of {@code sourceObjects} on the common fork/join pool.
+     *
+     * @see #extractAll(List, Object[], ForkJoinPool)
+     */
+    public Object[] extractAll(final List<?> sourceObjects) throws ReflectionPathException {
+        return extractAll(sourceObjects, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Evaluates this path against every element of {@code sourceObjects} on {@code pool}.
+     *
+     * @return a new array holding the value for {@code sourceObjects.get(i)} at index i
+     * @see #extractAll(List, Object[], ForkJoinPool)
+     */
+    public Object[] extractAll(final List<?> sourceObjects, final ForkJoinPool pool) throws ReflectionPathException {
+        Object[] results = new Object[sourceObjects.size()];
+        extractAll(sourceObjects, results, pool);
+        return results;
+    }
+
+    /**
+     * Evaluates this path against every element of {@code sourceObjects}, splitting the list into ranges which are
+     * evaluated in parallel on {@code pool}, and writes the value for {@code sourceObjects.get(i)} into
+     * {@code results[i]}. Lists that aren't {@link java.util.RandomAccess} are copied to an array first.
+     * <p/>
+     * If evaluation fails for any element, the exception thrown is the one a sequential loop would have thrown, i.e.,
+     * the one for the lowest failing index; {@code results} is then only partially filled.
+     *
+     * @throws ReflectionPathException
+     *             if any portion of the path is invalid, not declared or not accessible for any element
+     * @throws IllegalArgumentException
+     *             if {@code results} is shorter than {@code sourceObjects}
+     */
+    public void extractAll(final List<?> sourceObjects, final Object[] results, final ForkJoinPool pool)
+            throws ReflectionPathException {
+        if (results.length < sourceObjects.size()) {
+            throw new IllegalArgumentException("results has " + results.length + " slots, but there are "
+                    + sourceObjects.size() + " source objects");
+        }
+        PathExtractionTask task = PathExtractionTask.create(this, sourceObjects, results,
+                ReflectionHelpers.defaultSerializer, pool.getParallelism());
+        pool.invoke(task);
+        task.rethrowFailure();
+    }
+
+    /**
+     * Evaluates this path against {@code sourceObject} and returns its {@code int} leaf. When the leaf is an
+     * {@code int} field it is read without boxing.
+     *
+     * @throws ReflectionPathException
+     *             if the path is invalid, passes through null, or its leaf is not an {@code int} or {@code Integer}
+     */
+    public int getInt(final Object sourceObject) throws ReflectionPathException {
+        return getInt(sourceObject, ReflectionHelpers.defaultSerializer);
+    }
+
+    public int getInt(final Object sourceObject, final Serializer serializer) throws ReflectionPathException {
+        return getLeaf().getInt(getLeafContainer(sourceObject, serializer), serializer);
+    }
+
+    /**
+     * Evaluates this path against {@code sourceObject} and returns its {@code long} leaf. When the leaf is a
+     * {@code long} field it is read without boxing.
+     *
+     * @throws ReflectionPathException
+     *             if the path is invalid, passes through null, or its leaf is not a {@code long} or {@code Long}
+     */
+    public long getLong(final Object sourceObject) throws ReflectionPathException {
+        return getLong(sourceObject, ReflectionHelpers.defaultSerializer);
+    }
+
+    public long getLong(final Object sourceObject, final Serializer serializer) throws ReflectionPathException {
+        return getLeaf().getLong(getLeafContainer(sourceObject, serializer), serializer);
+    }
+
+    /**
+     * Evaluates this path against {@code sourceObject} and returns its {@code double} leaf. When the leaf is a
+     * {@code double} field it is read without boxing.
+     *
+     * @throws ReflectionPathException
+     *             if the path is invalid, passes through null, or its leaf is not a {@code double} or {@code Double}
+     */
+    public double getDouble(final Object sourceObject) throws ReflectionPathException {
+        return getDouble(sourceObject, ReflectionHelpers.defaultSerializer);
+    }
+
+    public double getDouble(final Object sourceObject, final Serializer serializer) throws ReflectionPathException {
+        return getLeaf().getDouble(getLeafContainer(sourceObject, serializer), serializer);
+    }
+
+    /**
+     * Evaluates this path against {@code sourceObject} and returns its {@code boolean} leaf.
+     *
+     * @throws ReflectionPathException
+     *             if the path is invalid, passes through null, or its leaf is not a {@code boolean} or
+     *             {@code Boolean}
+     */
+    public boolean getBoolean(final Object sourceObject) throws ReflectionPathException {
+        return getBoolean(sourceObject, ReflectionHelpers.defaultSerializer);
+    }
+
+    public boolean getBoolean(final Object sourceObject, final Serializer serializer) throws ReflectionPathException {
+        return getLeaf().getBoolean(getLeafContainer(sourceObject, serializer), serializer);
+    }
+
+    /**
+     * Sets the {@code int} field at the end of this path, starting from {@code targetObject}. When the field is an
+     * {@code int} it is written without boxing.
+     *
+     * @throws ReflectionPathException
+     *             if the path is invalid, passes through null, or does not end in an {@code int} or {@code Integer}
+     *             field
+     */
+    public void setInt(final Object targetObject, final int value) throws ReflectionPathException {
+        setInt(targetObject, value, ReflectionHelpers.defaultSerializer);
+    }
+
+    public void setInt(final Object targetObject, final int value, final Serializer serializer)
+            throws ReflectionPathException {
+        if (getLeaf() instanceof PathStep.MapKeyStep) {
+            // a Map holds boxed values anyway, and an empty one needs setValue() to find its key class.
+            setValue(targetObject, value, serializer);
+            return;
+        }
+        getLeaf().setInt(getLeafContainer(targetObject, serializer), value, serializer);
+    }
+
+    /**
+     * Sets the {@code long} field at the end of this path, starting from {@code targetObject}. When the field is a
+     * {@code long} it is written without boxing.
+     *
+     * @throws ReflectionPathException
+     *             if the path is invalid, passes through null, or does not end in a {@code long} or {@code Long}
+     *             field
+     */
+    public void setLong(final Object targetObject, final long value) throws ReflectionPathException {
+        setLong(targetObject, value, ReflectionHelpers.defaultSerializer);
+    }
+
+    public void setLong(final Object targetObject, final long value, final Serializer serializer)
+            throws ReflectionPathException {
+        if (getLeaf() instanceof PathStep.MapKeyStep) {
+            setValue(targetObject, value, serializer);
+            return;
+        }
+        getLeaf().setLong(getLeafContainer(targetObject, serializer), value, serializer);
+    }
+
+    /**
+     * Sets the {@code double} field at the end of this path, starting from {@code targetObject}. When the field is a
+     * {@code double} it is written without boxing.
+     *
+     * @throws ReflectionPathException
+     *             if the path is invalid, passes through null, or does not end in a {@code double} or
+     *             {@code Double} field
+     */
+    public void setDouble(final Object targetObject, final double value) throws ReflectionPathException {
+        setDouble(targetObject, value, ReflectionHelpers.defaultSerializer);
+    }
+
+    public void setDouble(final Object targetObject, final double value, final Serializer serializer)
+            throws ReflectionPathException {
+        if (getLeaf() instanceof PathStep.MapKeyStep) {
+            setValue(targetObject, value, serializer);
+            return;
+        }
+        getLeaf().setDouble(getLeafContainer(targetObject, serializer), value, serializer);
+    }
+
+    /**
+     * Sets the {@code boolean} field at the end of this path, starting from {@code targetObject}.
+     *
+     * @throws ReflectionPathException
+     *             if the path is invalid, passes through null, or does not end in a {@code boolean} or
+     *             {@code Boolean} field
+     */
+    public void setBoolean(final Object targetObject, final boolean value) throws ReflectionPathException {
+        setBoolean(targetObject, value, ReflectionHelpers.defaultSerializer);
+    }
+
+    public void setBoolean(final Object targetObject, final boolean value, final Serializer serializer)
+            throws ReflectionPathException {
+        if (getLeaf() instanceof PathStep.MapKeyStep) {
+            setValue(targetObject, value, serializer);
+            return;
+        }
+        getLeaf().setBoolean(getLeafContainer(targetObject, serializer), value, serializer);
+    }
+
+    private PathStep getLeaf() throws ReflectionPathException {
+        if (steps.isEmpty()) {
+            throw new ReflectionPathException("reflectionPath " + reflectionPath + " does not name a field");
+        }
+        return steps.get(steps.size() - 1);
+    }
+
+    // walks every step but the last one; unlike getValue(), running into a null along the way is an error.
+    private Object getLeafContainer(final Object sourceObject, final Serializer serializer)
+            throws ReflectionPathException {
+        Object value = sourceObject;
+        for (int i = 0; i < steps.size() - 1 && value != null; i++) {
+            value = steps.get(i).getValue(value, serializer);
+        }
+        if (value == null) {
+            throw new ReflectionPathException("reflectionPath " + reflectionPath + " passes through a null value");
+        }
+        return value;
+    }
+
+    // the declared type of the value the last step writes into, if the step before it reads a field; null otherwise.
+    private Type getLeafContainerType(final Object targetObject, final Serializer serializer)
+            throws ReflectionPathException {
+        if (steps.size() < 2) {
+            return null;
+        }
+        Object parent = targetObject;
+        for (int i = 0; i < steps.size() - 2; i++) {
+            parent = steps.get(i).getValue(parent, serializer);
+        }
+        return steps.get(steps.size() - 2).getDeclaredType(parent);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return steps.equals(((CompiledReflectionPath) o).steps);
+    }
+
+    @Override
+    public int hashCode() {
+        return steps.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return reflectionPath.toString();
+    }
+
+}
@@ -0,0 +1,516 @@
+package com.clearcapital.oss.java;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+import com.clearcapital.oss.java.exceptions.ReflectionPathException;
+import com.google.common.primitives.Primitives;
+
+/**
+ * Reads and writes one named field of one concrete class, through {@link MethodHandle}s resolved once and cached for
+ * the life of the class.
+ * <p/>
+ * Accessors are obtained from {@link ReflectionHelpers#getFieldAccessor(Class, String)} and may be held on to by
+ * callers. They are thread-safe; unlike {@code Field.setAccessible(true)}/{@code setAccessible(false)} around every
+ * access, nothing is flipped back and forth at call time.
+ * <p/>
+ * Once {@link ReflectionHelpers#enableGeneratedAccessors(int)} has been called, an accessor which has been read often
+ * enough is promoted: its reads go through a small class generated for the field, which reads it with a plain field
+ * instruction, so that the JIT can inline it as it would a hand-written getter. Values read are the same either way.
+ */
+public final class FieldAccessor {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    // the number of reads after which accessors are promoted to generated readers, or -1 if they never are.
+    private static volatile int promotionThreshold = -1;
+
+    // one map of field name -> accessor per receiver class, including negative entries for names that don't resolve.
+    private static final ClassValue<ConcurrentMap<String, FieldAccessor>> ACCESSORS =
+            new ClassValue<ConcurrentMap<String, FieldAccessor>>() {
+
+                @Override
+                protected ConcurrentMap<String, FieldAccessor> computeValue(final Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private final String name;
+    private final Field field;
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+    // the same handles with the field's own type, e.g., (Object)int, for reads and writes that don't box.
+    private final MethodHandle typedGetter;
+    private final MethodHandle typedSetter;
+    // true for final instance fields which there's no setter handle for, but which Field.set() can still write.
+    private final boolean setsReflectively;
+    // counted without synchronization; a lost increment only delays promotion.
+    private int reads;
+    private volatile boolean promotionAttempted;
+    // the generated reader, which also implements the typed read interface for int, long, double and boolean fields.
+    private volatile Function<Object, Object> generatedGetter;
+
+    private FieldAccessor(final String name, final Field field, final MethodHandle typedGetter,
+            final MethodHandle typedSetter, final boolean setsReflectively) {
+        this.name = name;
+        this.field = field;
+        this.typedGetter = typedGetter;
+        this.typedSetter = typedSetter;
+        this.setsReflectively = setsReflectively;
+        this.getter = typedGetter == null ? null : typedGetter.asType(GETTER_TYPE);
+        this.setter = typedSetter == null ? null : typedSetter.asType(SETTER_TYPE);
+    }
+
+    /**
+     * Returns the cached accessor for {@code fieldName} as seen from {@code type}, resolving it on first use. The
+     * result is never null; check {@link #exists()} for names that don't resolve to a field.
+     */
+    static FieldAccessor forField(final Class<?> type, final String fieldName) {
+        ConcurrentMap<String, FieldAccessor> accessors = ACCESSORS.get(type);
+        FieldAccessor accessor = accessors.get(fieldName);
+        if (accessor == null) {
+            accessor = resolve(type, fieldName);
+            FieldAccessor existing = accessors.putIfAbsent(fieldName, accessor);
+            if (existing != null) {
+                accessor = existing;
+            }
+        }
+        return accessor;
+    }
+
+    private static FieldAccessor resolve(final Class<?> type, final String fieldName) {
+        Field field = findField(type, fieldName);
+        if (field == null) {
+            return new FieldAccessor(fieldName, null, null, null, false);
+        }
+        try {
+            // this Field instance is private to the accessor, so setting its flag can't race with anyone.
+            field.setAccessible(true);
+        } catch (RuntimeException e) {
+            // SecurityException, or InaccessibleObjectException on a module that isn't open to us.
+            return new FieldAccessor(fieldName, field, null, null, false);
+        }
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        boolean isStatic = Modifier.isStatic(field.getModifiers());
+        MethodHandle typedGetter = null;
+        MethodHandle typedSetter = null;
+        boolean setsReflectively = false;
+        try {
+            typedGetter = lookup.unreflectGetter(field);
+            if (isStatic) {
+                typedGetter = MethodHandles.dropArguments(typedGetter, 0, Object.class);
+            }
+            typedGetter = typedGetter.asType(MethodType.methodType(field.getType(), Object.class));
+        } catch (IllegalAccessException e) {
+            // leave it null; get() reports the field as not accessible.
+        }
+        try {
+            typedSetter = lookup.unreflectSetter(field);
+            if (isStatic) {
+                typedSetter = MethodHandles.dropArguments(typedSetter, 0, Object.class);
+            }
+            typedSetter = typedSetter.asType(MethodType.methodType(void.class, Object.class, field.getType()));
+        } catch (IllegalAccessException e) {
+            // Java 8 refuses setter handles for all final fields. Field.set() writes final instance fields once they
+            // are accessible, as this class always did; static final fields are left unsettable.
+            setsReflectively = !isStatic;
+        }
+        return new FieldAccessor(fieldName, field, typedGetter, typedSetter, setsReflectively);
+    }
+
+    // walks up the class hierarchy without relying on getDeclaredField() throwing at every level that misses.
+    private static Field findField(final Class<?> type, final String fieldName) {
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            Field[] fields;
+            try {
+                fields = c.getDeclaredFields();
+            } catch (SecurityException e) {
+                continue;
+            }
+            for (Field field : fields) {
+                if (field.getName().equals(fieldName)) {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the field was found in the class or one of its superclasses.
+     */
+    public boolean exists() {
+        return field != null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the declared type of the field, or null if the field does not exist.
+     */
+    public Class<?> getType() {
+        return field == null ? null : field.getType();
+    }
+
+    /**
+     * @return the class or superclass which declares the field, or null if the field does not exist.
+     */
+    public Class<?> getDeclaringClass() {
+        return field == null ? null : field.getDeclaringClass();
+    }
+
+    /**
+     * @return the declared generic type of the field, or null if the field does not exist.
+     */
+    public Type getGenericType() {
+        return field == null ? null : field.getGenericType();
+    }
+
+    /**
+     * Returns the value of this field in {@code object}.
+     *
+     * @throws ReflectionPathException
+     *             if the field does not exist or is not accessible
+     */
+    public Object get(final Object object) throws ReflectionPathException {
+        Function<Object, Object> generated = generatedGetter;
+        if (generated != null) {
+            try {
+                return generated.apply(object);
+            } catch (RuntimeException e) {
+                throw new ReflectionPathException("field " + name + " is not accessible", e);
+            }
+        }
+        if (getter == null) {
+            throw missingOrInaccessible("field " + name + " does not exist", "field " + name + " is not accessible");
+        }
+        countRead();
+        try {
+            return (Object) getter.invokeExact(object);
+        } catch (RuntimeException e) {
+            throw new ReflectionPathException("field " + name + " is not accessible", e);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new ReflectionPathException("field " + name + " is not accessible", t);
+        }
+    }
+
+    /**
+     * Sets this field in {@code object} to {@code value}, unboxing and widening {@code value} as {@code Field.set}
+     * would.
+     *
+     * @throws ReflectionPathException
+     *             if the field does not exist, is not settable, or can't hold {@code value}
+     */
+    public void set(final Object object, final Object value) throws ReflectionPathException {
+        if (setter == null) {
+            if (setsReflectively) {
+                setReflectively(object, value);
+                return;
+            }
+            throw missingOrInaccessible("Field \"" + name + "\" not found in object", "Could not set field \"" + name
+                    + "\" in object");
+        }
+        try {
+            setter.invokeExact(object, value);
+        } catch (ClassCastException | NullPointerException e) {
+            // the handle only unboxes exact wrapper types; let Field.set() widen, or explain why it can't.
+            setReflectively(object, value);
+        } catch (RuntimeException e) {
+            throw new ReflectionPathException("Could not set field \"" + name + "\" in object", e);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new ReflectionPathException("Could not set field \"" + name + "\" in object", t);
+        }
+    }
+
+    /**
+     * Returns the value of this {@code int} or {@code Integer} field in {@code object}, without boxing it when the
+     * field is an {@code int}.
+     *
+     * @throws ReflectionPathException
+     *             if the field does not exist, is not accessible, is of another type, or is null
+     */
+    @SuppressWarnings("unchecked")
+    public int getInt(final Object object) throws ReflectionPathException {
+        if (typedGetter != null && field.getType() == int.class) {
+            Function<Object, Object> generated = generatedGetter;
+            if (generated != null) {
+                try {
+                    return ((ToIntFunction<Object>) generated).applyAsInt(object);
+                } catch (RuntimeException e) {
+                    throw readFailure(e);
+                }
+            }
+            countRead();
+            try {
+                return (int) typedGetter.invokeExact(object);
+            } catch (Throwable t) {
+                throw readFailure(t);
+            }
+        }
+        return PathStep.toInt(getBoxed(object, Integer.class), name);
+    }
+
+    /**
+     * Returns the value of this {@code long} or {@code Long} field in {@code object}, without boxing it when the field
+     * is a {@code long}.
+     *
+     * @throws ReflectionPathException
+     *             if the field does not exist, is not accessible, is of another type, or is null
+     */
+    @SuppressWarnings("unchecked")
+    public long getLong(final Object object) throws ReflectionPathException {
+        if (typedGetter != null && field.getType() == long.class) {
+            Function<Object, Object> generated = generatedGetter;
+            if (generated != null) {
+                try {
+                    return ((ToLongFunction<Object>) generated).applyAsLong(object);
+                } catch (RuntimeException e) {
+                    throw readFailure(e);
+                }
+            }
+            countRead();
+            try {
+                return (long) typedGetter.invokeExact(object);
+            } catch (Throwable t) {
+                throw readFailure(t);
+            }
+        }
+        return PathStep.toLong(getBoxed(object, Long.class), name);
+    }
+
+    /**
+     * Returns the value of this {@code double} or {@code Double} field in {@code object}, without boxing it when the
+     * field is a {@code double}.
+     *
+     * @throws ReflectionPathException
+     *             if the field does not exist, is not accessible, is of another type, or is null
+     */
+    @SuppressWarnings("unchecked")
+    public double getDouble(final Object object) throws ReflectionPathException {
+        if (typedGetter != null && field.getType() == double.class) {
+            Function<Object, Object> generated = generatedGetter;
+            if (generated != null) {
+                try {
+                    return ((ToDoubleFunction<Object>) generated).applyAsDouble(object);
+                } catch (RuntimeException e) {
+                    throw readFailure(e);
+                }
+            }
+            countRead();
+            try {
+                return (double) typedGetter.invokeExact(object);
+            } catch (Throwable t) {
+                throw readFailure(t);
+            }
+        }
+        return PathStep.toDouble(getBoxed(object, Double.class), name);
+    }
+
+    /**
+     * Returns the value of this {@code boolean} or {@code Boolean} field in {@code object}.
+     *
+     * @throws ReflectionPathException
+     *             if the field does not exist, is not accessible, is of another type, or is null
+     */
+    @SuppressWarnings("unchecked")
+    public boolean getBoolean(final Object object) throws ReflectionPathException {
+        if (typedGetter != null && field.getType() == boolean.class) {
+            Function<Object, Object> generated = generatedGetter;
+            if (generated != null) {
+                try {
+                    return ((Predicate<Object>) generated).test(object);
+                } catch (RuntimeException e) {
+                    throw readFailure(e);
+                }
+            }
+            countRead();
+            try {
+                return (boolean) typedGetter.invokeExact(object);
+            } catch (Throwable t) {
+                throw readFailure(t);
+            }
+        }
+        return PathStep.toBoolean(getBoxed(object, Boolean.class), name);
+    }
+
+    /**
+     * Sets this {@code int} or {@code Integer} field in {@code object}, without boxing {@code value} when the field
+     * is an {@code int}.
+     *
+     * @throws ReflectionPathException
+     *             if the field does not exist, is not settable, or is of another type
+     */
+    public void setInt(final Object object, final int value) throws ReflectionPathException {
+        if (typedSetter != null && field.getType() == int.class) {
+            try {
+                typedSetter.invokeExact(object, value);
+                return;
+            } catch (Throwable t) {
+                throw writeFailure(t);
+            }
+        }
+        setBoxed(object, Integer.class, value);
+    }
+
+    /**
+     * Sets this {@code long} or {@code Long} field in {@code object}, without boxing {@code value} when the field is
+     * a {@code long}.
+     *
+     * @throws ReflectionPathException
+     *             if the field does not exist, is not settable, or is of another type
+     */
+    public void setLong(final Object object, final long value) throws ReflectionPathException {
+        if (typedSetter != null && field.getType() == long.class) {
+            try {
+                typedSetter.invokeExact(object, value);
+                return;
+            } catch (Throwable t) {
+                throw writeFailure(t);
+            }
+        }
+        setBoxed(object, Long.class, value);
+    }
+
+    /**
+     * Sets this {@code double} or {@code Double} field in {@code object}, without boxing {@code value} when the field
+     * is a {@code double}.
+     *
+     * @throws ReflectionPathException
+     *             if the field does not exist, is not settable, or is of another type
+     */
+    public void setDouble(final Object object, final double value) throws ReflectionPathException {
+        if (typedSetter != null && field.getType() == double.class) {
+            try {
+                typedSetter.invokeExact(object, value);
+                return;
+            } catch (Throwable t) {
+                throw writeFailure(t);
+            }
+        }
+        setBoxed(object, Double.class, value);
+    }
+
+    /**
+     * Sets this {@code boolean} or {@code Boolean} field in {@code object}.
+     *
+     * @throws ReflectionPathException
+     *             if the field does not exist, is not settable, or is of another type
+     */
+    public void setBoolean(final Object object, final boolean value) throws ReflectionPathException {
+        if (typedSetter != null && field.getType() == boolean.class) {
+            try {
+                typedSetter.invokeExact(object, value);
+                return;
+            } catch (Throwable t) {
+                throw writeFailure(t);
+            }
+        }
+        setBoxed(object, Boolean.class, value);
+    }
+
+    // reads a field declared as the wrapper type; anything else is a type mismatch.
+    private Object getBoxed(final Object object, final Class<?> wrapperType) throws ReflectionPathException {
+        if (field != null && field.getType() != wrapperType) {
+            throw typeMismatch(Primitives.unwrap(wrapperType));
+        }
+        return get(object);
+    }
+
+    private void setBoxed(final Object object, final Class<?> wrapperType, final Object value)
+            throws ReflectionPathException {
+        // a primitive field gets here without a typed setter handle when it's written through Field.set().
+        if (field != null && field.getType() != wrapperType && field.getType() != Primitives.unwrap(wrapperType)) {
+            throw typeMismatch(Primitives.unwrap(wrapperType));
+        }
+        set(object, value);
+    }
+
+    private ReflectionPathException typeMismatch(final Class<?> requestedType) {
+        return new ReflectionPathException("field " + name + " is of type " + field.getType().getName() + ", not "
+                + requestedType.getName());
+    }
+
+    private ReflectionPathException readFailure(final Throwable t) {
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new ReflectionPathException("field " + name + " is not accessible", t);
+    }
+
+    private ReflectionPathException writeFailure(final Throwable t) {
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new ReflectionPathException("Could not set field \"" + name + "\" in object", t);
+    }
+
+    static void setPromotionThreshold(final int threshold) {
+        promotionThreshold = threshold;
+    }
+
+    /**
+     * @return true if reads go through a generated reader.
+     */
+    boolean isGenerated() {
+        return generatedGetter != null;
+    }
+
+    private void countRead() {
+        int threshold = promotionThreshold;
+        if (threshold >= 0 && !promotionAttempted && ++reads > threshold) {
+            promote();
+        }
+    }
+
+    /**
+     * Generates the reader for this field, once; if none can be generated, reads stay on the method handle.
+     */
+    synchronized void promote() {
+        if (promotionAttempted || getter == null) {
+            return;
+        }
+        promotionAttempted = true;
+        generatedGetter = GeneratedAccessors.generate(field);
+    }
+
+    private void setReflectively(final Object object, final Object value) throws ReflectionPathException {
+        try {
+            field.set(object, value);
+        } catch (IllegalArgumentException | IllegalAccessException | NullPointerException e) {
+            throw new ReflectionPathException("Could not set field \"" + name + "\" in object", e);
+        }
+    }
+
+    private ReflectionPathException missingOrInaccessible(final String missingMessage,
+            final String inaccessibleMessage) {
+        if (field == null) {
+            return new ReflectionPathException(missingMessage, new NoSuchFieldException(name));
+        }
+        return new ReflectionPathException(inaccessibleMessage);
+    }
+
+    @Override
+    public String toString() {
+        return field == null ? "missing field " + name : field.toString();
+    }
+
+}
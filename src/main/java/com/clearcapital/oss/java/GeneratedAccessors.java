@@ -0,0 +1,383 @@
+package com.clearcapital.oss.java;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Spins one small class per field which reads it with a plain {@code getfield} or {@code getstatic}, for the
+ * {@link FieldAccessor}s which are read often enough to be promoted. The class implements {@link Function}, which
+ * returns the value boxed, and for {@code int}, {@code long}, {@code double} and {@code boolean} fields also
+ * {@link ToIntFunction}, {@link ToLongFunction}, {@link ToDoubleFunction} or {@link Predicate}, which don't box.
+ * <p/>
+ * So that it may read private fields, the class is defined as a nestmate of the field's declaring class with
+ * {@code Lookup.defineHiddenClass} where the runtime has it (Java 15 and later), or else as a VM-anonymous class of it
+ * with {@code Unsafe.defineAnonymousClass} (Java 8). Both are looked up reflectively, since the build targets Java 8.
+ * Where neither works, nothing is generated and accessors keep their method handles.
+ */
+final class GeneratedAccessors {
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int IRETURN = 0xac;
+    private static final int LRETURN = 0xad;
+    private static final int DRETURN = 0xaf;
+    private static final int ARETURN = 0xb0;
+    private static final int RETURN = 0xb1;
+    private static final int GETSTATIC = 0xb2;
+    private static final int GETFIELD = 0xb4;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int CHECKCAST = 0xc0;
+
+    private static final int UTF8 = 1;
+    private static final int CLASS = 7;
+    private static final int FIELDREF = 9;
+    private static final int METHODREF = 10;
+    private static final int NAME_AND_TYPE = 12;
+
+    private static final Definer DEFINER = findDefiner();
+
+    private GeneratedAccessors() {
+    }
+
+    static boolean isSupported() {
+        return DEFINER != null;
+    }
+
+    /**
+     * Returns a new reader of {@code field}, or null if none can be generated for it.
+     */
+    @SuppressWarnings("unchecked")
+    static Function<Object, Object> generate(final Field field) {
+        Class<?> host = field.getDeclaringClass();
+        if (DEFINER == null || !isNameable(host)) {
+            return null;
+        }
+        try {
+            return (Function<Object, Object>) DEFINER.define(host, toBytes(field));
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // the generated class names the declaring class, which only resolves if the class can be found by its name.
+    private static boolean isNameable(final Class<?> host) {
+        try {
+            return Class.forName(host.getName(), false, host.getClassLoader()) == host;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static byte[] toBytes(final Field field) {
+        Class<?> type = field.getType();
+        String host = internalName(field.getDeclaringClass());
+        Primitive primitive = Primitive.of(type);
+
+        ConstantPool pool = new ConstantPool();
+        int thisClass = pool.classRef(host + "$$FieldReader");
+        int objectClass = pool.classRef("java/lang/Object");
+        int functionClass = pool.classRef("java/util/function/Function");
+        int typedClass = primitive == null || primitive.readInterface == null ? 0 : pool.classRef(
+                primitive.readInterface);
+        int constructor = pool.memberRef(METHODREF, "java/lang/Object", "<init>", "()V");
+
+        ByteArrayDataOutput methods = ByteStreams.newDataOutput();
+        int methodCount = 2;
+        ByteArrayDataOutput code = ByteStreams.newDataOutput();
+        code.writeByte(ALOAD_0);
+        code.writeByte(INVOKESPECIAL);
+        code.writeShort(constructor);
+        code.writeByte(RETURN);
+        writeMethod(pool, methods, "<init>", "()V", 1, code.toByteArray());
+
+        byte[] read = readField(pool, field, host);
+        code = ByteStreams.newDataOutput();
+        code.write(read);
+        if (primitive != null) {
+            code.writeByte(INVOKESTATIC);
+            code.writeShort(pool.memberRef(METHODREF, primitive.wrapper, "valueOf", "(" + primitive.descriptor
+                    + ")L" + primitive.wrapper + ";"));
+        }
+        code.writeByte(ARETURN);
+        writeMethod(pool, methods, "apply", "(Ljava/lang/Object;)Ljava/lang/Object;", 2, code.toByteArray());
+
+        if (typedClass != 0) {
+            code = ByteStreams.newDataOutput();
+            code.write(read);
+            code.writeByte(primitive.returnOpcode);
+            writeMethod(pool, methods, primitive.readMethod, "(Ljava/lang/Object;)" + primitive.descriptor, 2, code
+                    .toByteArray());
+            methodCount++;
+        }
+
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        // Java 8 class files need no stack map frames for straight-line code.
+        out.writeShort(52);
+        out.writeShort(pool.size() + 1);
+        out.write(pool.toByteArray());
+        out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+        out.writeShort(thisClass);
+        out.writeShort(objectClass);
+        out.writeShort(typedClass == 0 ? 1 : 2);
+        out.writeShort(functionClass);
+        if (typedClass != 0) {
+            out.writeShort(typedClass);
+        }
+        out.writeShort(0);
+        out.writeShort(methodCount);
+        out.write(methods.toByteArray());
+        out.writeShort(0);
+        return out.toByteArray();
+    }
+
+    // leaves the value of field, read from the first argument, on the stack.
+    private static byte[] readField(final ConstantPool pool, final Field field, final String host) {
+        ByteArrayDataOutput code = ByteStreams.newDataOutput();
+        int fieldRef = pool.memberRef(FIELDREF, host, field.getName(), descriptor(field.getType()));
+        if (Modifier.isStatic(field.getModifiers())) {
+            code.writeByte(GETSTATIC);
+            code.writeShort(fieldRef);
+        } else {
+            code.writeByte(ALOAD_1);
+            code.writeByte(CHECKCAST);
+            code.writeShort(pool.classRef(host));
+            code.writeByte(GETFIELD);
+            code.writeShort(fieldRef);
+        }
+        return code.toByteArray();
+    }
+
+    private static void writeMethod(final ConstantPool pool, final ByteArrayDataOutput methods, final String name,
+            final String descriptor, final int maxLocals, final byte[] code) {
+        methods.writeShort(ACC_PUBLIC);
+        methods.writeShort(pool.utf8(name));
+        methods.writeShort(pool.utf8(descriptor));
+        methods.writeShort(1);
+        methods.writeShort(pool.utf8("Code"));
+        methods.writeInt(12 + code.length);
+        // a long or double takes two slots.
+        methods.writeShort(2);
+        methods.writeShort(maxLocals);
+        methods.writeInt(code.length);
+        methods.write(code);
+        methods.writeShort(0);
+        methods.writeShort(0);
+    }
+
+    private static String internalName(final Class<?> type) {
+        return type.getName().replace('.', '/');
+    }
+
+    private static String descriptor(final Class<?> type) {
+        Primitive primitive = Primitive.of(type);
+        if (primitive != null) {
+            return primitive.descriptor;
+        }
+        return type.isArray() ? internalName(type) : "L" + internalName(type) + ";";
+    }
+
+    /**
+     * How a field of a primitive type is boxed, and read without boxing where there is an interface for it.
+     */
+    private enum Primitive {
+
+        INT(int.class, "I", "java/lang/Integer", "java/util/function/ToIntFunction", "applyAsInt", IRETURN),
+        LONG(long.class, "J", "java/lang/Long", "java/util/function/ToLongFunction", "applyAsLong", LRETURN),
+        DOUBLE(double.class, "D", "java/lang/Double", "java/util/function/ToDoubleFunction", "applyAsDouble",
+                DRETURN),
+        BOOLEAN(boolean.class, "Z", "java/lang/Boolean", "java/util/function/Predicate", "test", IRETURN),
+        BYTE(byte.class, "B", "java/lang/Byte", null, null, 0),
+        SHORT(short.class, "S", "java/lang/Short", null, null, 0),
+        CHAR(char.class, "C", "java/lang/Character", null, null, 0),
+        FLOAT(float.class, "F", "java/lang/Float", null, null, 0);
+
+        final Class<?> type;
+        final String descriptor;
+        final String wrapper;
+        final String readInterface;
+        final String readMethod;
+        final int returnOpcode;
+
+        Primitive(final Class<?> type, final String descriptor, final String wrapper, final String readInterface,
+                final String readMethod, final int returnOpcode) {
+            this.type = type;
+            this.descriptor = descriptor;
+            this.wrapper = wrapper;
+            this.readInterface = readInterface;
+            this.readMethod = readMethod;
+            this.returnOpcode = returnOpcode;
+        }
+
+        static Primitive of(final Class<?> type) {
+            for (Primitive primitive : values()) {
+                if (primitive.type == type) {
+                    return primitive;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The constant pool of the class being written, with each entry added once.
+     */
+    private static final class ConstantPool {
+
+        private final ByteArrayDataOutput entries = ByteStreams.newDataOutput();
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        int size() {
+            return indexes.size();
+        }
+
+        byte[] toByteArray() {
+            return entries.toByteArray();
+        }
+
+        int utf8(final String value) {
+            Integer index = indexes.get("utf8 " + value);
+            if (index == null) {
+                entries.writeByte(UTF8);
+                entries.writeUTF(value);
+                index = add("utf8 " + value);
+            }
+            return index;
+        }
+
+        int classRef(final String internalName) {
+            Integer index = indexes.get("class " + internalName);
+            if (index == null) {
+                int name = utf8(internalName);
+                entries.writeByte(CLASS);
+                entries.writeShort(name);
+                index = add("class " + internalName);
+            }
+            return index;
+        }
+
+        int memberRef(final int tag, final String owner, final String name, final String descriptor) {
+            String key = tag + " " + owner + "." + name + ":" + descriptor;
+            Integer index = indexes.get(key);
+            if (index == null) {
+                int ownerClass = classRef(owner);
+                int nameIndex = utf8(name);
+                int descriptorIndex = utf8(descriptor);
+                entries.writeByte(NAME_AND_TYPE);
+                entries.writeShort(nameIndex);
+                entries.writeShort(descriptorIndex);
+                int nameAndType = add("nameAndType " + key);
+                entries.writeByte(tag);
+                entries.writeShort(ownerClass);
+                entries.writeShort(nameAndType);
+                index = add(key);
+            }
+            return index;
+        }
+
+        private int add(final String key) {
+            int index = indexes.size() + 1;
+            indexes.put(key, index);
+            return index;
+        }
+    }
+
+    /**
+     * Defines a class from its bytes with the access of {@code host}, and returns an instance of it.
+     */
+    private interface Definer {
+
+        Object define(Class<?> host, byte[] bytes) throws ReflectiveOperationException;
+    }
+
+    private static Definer findDefiner() {
+        try {
+            return new HiddenClassDefiner();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // before Java 15.
+        }
+        try {
+            return new AnonymousClassDefiner();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Unsafe.defineAnonymousClass was removed in Java 17.
+        }
+        return null;
+    }
+
+    private static Object newInstance(final Class<?> type) throws ReflectiveOperationException {
+        Constructor<?> constructor = type.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        return constructor.newInstance();
+    }
+
+    private static final class HiddenClassDefiner implements Definer {
+
+        private final Method privateLookupIn;
+        private final Method defineHiddenClass;
+        private final Object nestmate;
+
+        HiddenClassDefiner() throws ReflectiveOperationException {
+            Class<?> optionType = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+            privateLookupIn = MethodHandles.class.getMethod("privateLookupIn", Class.class,
+                    MethodHandles.Lookup.class);
+            defineHiddenClass = MethodHandles.Lookup.class.getMethod("defineHiddenClass", byte[].class,
+                    boolean.class, Array.newInstance(optionType, 0).getClass());
+            nestmate = Array.newInstance(optionType, 1);
+            for (Object option : optionType.getEnumConstants()) {
+                if (((Enum<?>) option).name().equals("NESTMATE")) {
+                    Array.set(nestmate, 0, option);
+                }
+            }
+        }
+
+        @Override
+        public Object define(final Class<?> host, final byte[] bytes) throws ReflectiveOperationException {
+            MethodHandles.Lookup lookup = (MethodHandles.Lookup) privateLookupIn.invoke(null, host, MethodHandles
+                    .lookup());
+            MethodHandles.Lookup hidden = (MethodHandles.Lookup) defineHiddenClass.invoke(lookup, bytes, true,
+                    nestmate);
+            return newInstance(hidden.lookupClass());
+        }
+    }
+
+    private static final class AnonymousClassDefiner implements Definer {
+
+        private final Object unsafe;
+        private final Method defineAnonymousClass;
+
+        AnonymousClassDefiner() throws ReflectiveOperationException {
+            Class<?> unsafeType = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeType.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+            defineAnonymousClass = unsafeType.getMethod("defineAnonymousClass", Class.class, byte[].class,
+                    Object[].class);
+        }
+
+        @Override
+        public Object define(final Class<?> host, final byte[] bytes) throws ReflectiveOperationException {
+            return newInstance((Class<?>) defineAnonymousClass.invoke(unsafe, host, bytes, null));
+        }
+    }
+
+}
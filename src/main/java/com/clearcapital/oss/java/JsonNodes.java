@@ -0,0 +1,65 @@
+package com.clearcapital.oss.java;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+/**
+ * Converts between the values path steps hand out and take in, and the {@link JsonNode}s of a Jackson tree, so that
+ * paths can walk trees read by {@code JsonSerializer.getObjectMapper()} in place.
+ */
+final class JsonNodes {
+
+    private JsonNodes() {
+    }
+
+    /**
+     * Returns what a step yields for {@code node}: the node itself, or null for a missing node or a JSON null, so that
+     * evaluation stops there as it does at a null field.
+     */
+    static Object fromNode(final JsonNode node) {
+        return node == null || node.isNull() || node.isMissingNode() ? null : node;
+    }
+
+    /**
+     * Returns {@code value} as a node to store in a tree: nodes as they are, null as a JSON null, Strings, numbers and
+     * Booleans as the matching value nodes, and anything else as a POJO node which the mapper writes out as usual.
+     */
+    static JsonNode toNode(final Object value) {
+        JsonNodeFactory nodes = JsonNodeFactory.instance;
+        if (value == null) {
+            return nodes.nullNode();
+        }
+        if (value instanceof JsonNode) {
+            return (JsonNode) value;
+        }
+        if (value instanceof String) {
+            return nodes.textNode((String) value);
+        }
+        if (value instanceof Boolean) {
+            return nodes.booleanNode((Boolean) value);
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return nodes.numberNode(((Number) value).intValue());
+        }
+        if (value instanceof Long) {
+            return nodes.numberNode((Long) value);
+        }
+        if (value instanceof Double) {
+            return nodes.numberNode((Double) value);
+        }
+        if (value instanceof Float) {
+            return nodes.numberNode((Float) value);
+        }
+        if (value instanceof BigInteger) {
+            return nodes.numberNode((BigInteger) value);
+        }
+        if (value instanceof BigDecimal) {
+            return nodes.numberNode((BigDecimal) value);
+        }
+        return nodes.pojoNode(value);
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.clearcapital.oss.java;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.clearcapital.oss.java.exceptions.DeserializingException;
+
+/**
+ * Converts the text of a {@code [key]} path entry into a key of a Map's key class, remembering every conversion by
+ * (key class, key text) so that a given key is only ever converted once.
+ * <p/>
+ * Strings, enums, boxed primitives, {@link BigInteger}, {@link BigDecimal} and {@link UUID} are converted directly.
+ * Anything else, or text the direct conversion rejects, falls back to the {@link Serializer}.
+ */
+final class MapKeyConverter {
+
+    // keeps a path built from unbounded input from growing the cache without limit.
+    static final int MAX_CACHED_KEYS_PER_CLASS = 4096;
+
+    private static final ClassValue<ConcurrentMap<String, Object>> KEYS =
+            new ClassValue<ConcurrentMap<String, Object>>() {
+
+                @Override
+                protected ConcurrentMap<String, Object> computeValue(final Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private MapKeyConverter() {
+    }
+
+    /**
+     * Returns {@code keyText} converted to {@code keyClass}.
+     *
+     * @throws DeserializingException
+     *             if neither a direct conversion nor {@code serializer} could convert the text
+     */
+    static Object convert(final Class<?> keyClass, final String keyText, final Serializer serializer)
+            throws DeserializingException {
+        if (keyClass == String.class) {
+            return keyText;
+        }
+        ConcurrentMap<String, Object> keys = KEYS.get(keyClass);
+        Object key = keys.get(keyText);
+        if (key == null) {
+            key = convertDirectly(keyClass, keyText);
+            if (key == null) {
+                key = deserialize(keyClass, keyText, serializer);
+            }
+            if (key != null && keys.size() < MAX_CACHED_KEYS_PER_CLASS) {
+                keys.putIfAbsent(keyText, key);
+            }
+        }
+        return key;
+    }
+
+    // returns null if there's no direct conversion, or the text doesn't fit it.
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object convertDirectly(final Class<?> keyClass, final String keyText) {
+        try {
+            if (keyClass.isEnum()) {
+                return Enum.valueOf((Class<? extends Enum>) keyClass, keyText);
+            }
+            if (keyClass == Integer.class) {
+                return Integer.valueOf(keyText);
+            }
+            if (keyClass == Long.class) {
+                return Long.valueOf(keyText);
+            }
+            if (keyClass == Short.class) {
+                return Short.valueOf(keyText);
+            }
+            if (keyClass == Byte.class) {
+                return Byte.valueOf(keyText);
+            }
+            if (keyClass == Double.class) {
+                return Double.valueOf(keyText);
+            }
+            if (keyClass == Float.class) {
+                return Float.valueOf(keyText);
+            }
+            if (keyClass == Boolean.class) {
+                return "true".equals(keyText) ? Boolean.TRUE : "false".equals(keyText) ? Boolean.FALSE : null;
+            }
+            if (keyClass == Character.class) {
+                return keyText.length() == 1 ? Character.valueOf(keyText.charAt(0)) : null;
+            }
+            if (keyClass == BigInteger.class) {
+                return new BigInteger(keyText);
+            }
+            if (keyClass == BigDecimal.class) {
+                return new BigDecimal(keyText);
+            }
+            if (keyClass == UUID.class) {
+                return UUID.fromString(keyText);
+            }
+        } catch (IllegalArgumentException e) {
+            // includes NumberFormatException; let the serializer have a go.
+        }
+        return null;
+    }
+
+    private static Object deserialize(final Class<?> keyClass, final String keyText, final Serializer serializer)
+            throws DeserializingException {
+        if (serializer == null) {
+            throw new DeserializingException("No serializer to convert '" + keyText + "' to " + keyClass.getName(),
+                    null);
+        }
+        String json = keyClass.isEnum() ? "\"" + keyText + "\"" : keyText;
+        return serializer.getObject(json, keyClass);
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.clearcapital.oss.java;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.RecursiveAction;
+
+import com.clearcapital.oss.java.exceptions.ReflectionPathException;
+
+/**
+ * Evaluates one {@link CompiledReflectionPath} against a range of a list of source objects, splitting the range in
+ * half until it is small enough to evaluate directly.
+ * <p/>
+ * Failures are reported the way a sequential loop would report them: every index before the first failing one is
+ * still evaluated, indexes after it may be skipped, and the exception thrown is the one for the lowest failing index.
+ */
+final class PathExtractionTask extends RecursiveAction {
+
+    private static final long serialVersionUID = -2874164186214232017L;
+
+    // ranges smaller than this aren't worth forking.
+    static final int MIN_CHUNK_SIZE = 256;
+
+    private final CompiledReflectionPath path;
+    private final List<?> sources;
+    private final Object[] results;
+    private final Serializer serializer;
+    private final Failure failure;
+    private final int chunkSize;
+    private final int from;
+    private final int to;
+
+    private PathExtractionTask(final CompiledReflectionPath path, final List<?> sources, final Object[] results,
+            final Serializer serializer, final Failure failure, final int chunkSize, final int from, final int to) {
+        this.path = path;
+        this.sources = sources;
+        this.results = results;
+        this.serializer = serializer;
+        this.failure = failure;
+        this.chunkSize = chunkSize;
+        this.from = from;
+        this.to = to;
+    }
+
+    static PathExtractionTask create(final CompiledReflectionPath path, final List<?> sources, final Object[] results,
+            final Serializer serializer, final int parallelism) {
+        // a few chunks per worker, so that one slow chunk doesn't leave the others idle.
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, sources.size() / (Math.max(1, parallelism) * 4));
+        List<?> indexable = sources instanceof RandomAccess ? sources : Arrays.asList(sources.toArray());
+        return new PathExtractionTask(path, indexable, results, serializer, new Failure(), chunkSize, 0,
+                indexable.size());
+    }
+
+    /**
+     * Throws the failure for the lowest failing index, if there was one. Call after the task has completed.
+     */
+    void rethrowFailure() throws ReflectionPathException {
+        if (failure.exception != null) {
+            throw failure.exception;
+        }
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= chunkSize) {
+            extract();
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        invokeAll(new PathExtractionTask(path, sources, results, serializer, failure, chunkSize, from, middle),
+                new PathExtractionTask(path, sources, results, serializer, failure, chunkSize, middle, to));
+    }
+
+    private void extract() {
+        for (int i = from; i < to && i < failure.index; i++) {
+            try {
+                results[i] = path.getValue(sources.get(i), serializer);
+            } catch (ReflectionPathException e) {
+                failure.record(i, e);
+                return;
+            }
+        }
+    }
+
+    private static final class Failure {
+
+        volatile int index = Integer.MAX_VALUE;
+        ReflectionPathException exception;
+
+        synchronized void record(final int failedIndex, final ReflectionPathException failedException) {
+            if (failedIndex < index) {
+                exception = failedException;
+                index = failedIndex;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,744 @@
+package com.clearcapital.oss.java;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import com.clearcapital.oss.java.exceptions.DeserializingException;
+import com.clearcapital.oss.java.exceptions.ReflectionPathException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.Iterators;
+import com.google.common.reflect.TypeToken;
+
+/**
+ * One parsed entry of a reflection path. See {@link ReflectionHelpers#getFieldValue(Object, Collection, Serializer)}
+ * for the syntax of a path entry; a {@link CompiledReflectionPath} is an immutable list of these.
+ * <p/>
+ * Steps are immutable as far as callers can tell, and safe to share between threads. Each step may cache whatever it
+ * resolved for the last receiver class it saw, so evaluating it again does no string parsing and no field lookup.
+ * <p/>
+ * Steps also walk Jackson trees in place: a field name or {@code [key]} selects a member of an {@link ObjectNode},
+ * and {@code {n}} an element of an {@link ArrayNode}. What they select is the node itself, or null for a JSON null;
+ * a field which isn't there is read as null, since null fields aren't written, whereas a missing {@code [key]} is an
+ * error, as it is for a Map. Typed reads accept number and boolean nodes, and writes store values as nodes.
+ */
+public abstract class PathStep {
+
+    public enum Kind {
+        FIELD,
+        MAP_KEY,
+        COLLECTION_INDEX
+    }
+
+    private final String pathEntry;
+
+    PathStep(final String pathEntry) {
+        this.pathEntry = pathEntry;
+    }
+
+    /**
+     * Parses a single, non-null reflection path entry. The "." entry is not a step; callers must handle it before
+     * calling this.
+     */
+    static PathStep parse(final String pathEntry) {
+        if (ReflectionHelpers.isMapKey(pathEntry)) {
+            return new MapKeyStep(pathEntry, ReflectionHelpers.getMapKey(pathEntry));
+        }
+        if (ReflectionHelpers.isCollectionIndex(pathEntry)) {
+            return new CollectionIndexStep(pathEntry, ReflectionHelpers.getCollectionIndex(pathEntry));
+        }
+        return new FieldStep(pathEntry);
+    }
+
+    public abstract Kind getKind();
+
+    /**
+     * @return the path entry this step was parsed from, e.g., "field", "[key]" or "{2}".
+     */
+    public String getPathEntry() {
+        return pathEntry;
+    }
+
+    /**
+     * Returns the value this step selects from {@code container}, which must not be null.
+     */
+    abstract Object getValue(Object container, Serializer serializer) throws ReflectionPathException;
+
+    /**
+     * Replaces the value this step selects in {@code container}, which must not be null.
+     */
+    abstract void setValue(Object container, Object value, Serializer serializer) throws ReflectionPathException;
+
+    /**
+     * Returns the declared type of the value this step selects from {@code container}, or null if it isn't known.
+     * Only fields have one: it is the field's generic type, with the type variables of its class resolved where
+     * {@code container}'s class binds them.
+     */
+    Type getDeclaredType(final Object container) {
+        return null;
+    }
+
+    // typed terminal reads and writes; steps that can reach a primitive without boxing override these.
+
+    int getInt(final Object container, final Serializer serializer) throws ReflectionPathException {
+        return toInt(getValue(container, serializer), pathEntry);
+    }
+
+    long getLong(final Object container, final Serializer serializer) throws ReflectionPathException {
+        return toLong(getValue(container, serializer), pathEntry);
+    }
+
+    double getDouble(final Object container, final Serializer serializer) throws ReflectionPathException {
+        return toDouble(getValue(container, serializer), pathEntry);
+    }
+
+    boolean getBoolean(final Object container, final Serializer serializer) throws ReflectionPathException {
+        return toBoolean(getValue(container, serializer), pathEntry);
+    }
+
+    void setInt(final Object container, final int value, final Serializer serializer) throws ReflectionPathException {
+        setValue(container, value, serializer);
+    }
+
+    void setLong(final Object container, final long value, final Serializer serializer)
+            throws ReflectionPathException {
+        setValue(container, value, serializer);
+    }
+
+    void setDouble(final Object container, final double value, final Serializer serializer)
+            throws ReflectionPathException {
+        setValue(container, value, serializer);
+    }
+
+    void setBoolean(final Object container, final boolean value, final Serializer serializer)
+            throws ReflectionPathException {
+        setValue(container, value, serializer);
+    }
+
+    ReflectionPathException notWritable(final Throwable cause) {
+        return new ReflectionPathException("reflectionPath entry '" + pathEntry + "' can not be written", cause);
+    }
+
+    static int toInt(final Object value, final String label) throws ReflectionPathException {
+        if (value instanceof Integer) {
+            return (Integer) value;
+        }
+        if (value instanceof JsonNode) {
+            JsonNode node = (JsonNode) value;
+            if (node.isIntegralNumber() && node.canConvertToInt()) {
+                return node.intValue();
+            }
+            Long parsed = parseLong(node);
+            if (parsed != null && parsed == parsed.intValue()) {
+                return parsed.intValue();
+            }
+        }
+        throw typeMismatch(value, label, int.class);
+    }
+
+    static long toLong(final Object value, final String label) throws ReflectionPathException {
+        if (value instanceof Long) {
+            return (Long) value;
+        }
+        if (value instanceof JsonNode) {
+            JsonNode node = (JsonNode) value;
+            if (node.isIntegralNumber() && node.canConvertToLong()) {
+                return node.longValue();
+            }
+            Long parsed = parseLong(node);
+            if (parsed != null) {
+                return parsed;
+            }
+        }
+        throw typeMismatch(value, label, long.class);
+    }
+
+    // JsonSerializer writes longs as strings by default, so a tree it read holds them as text nodes.
+    private static Long parseLong(final JsonNode node) {
+        if (!node.isTextual()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(node.textValue());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static double toDouble(final Object value, final String label) throws ReflectionPathException {
+        if (value instanceof Double) {
+            return (Double) value;
+        }
+        if (value instanceof JsonNode && ((JsonNode) value).isNumber()) {
+            return ((JsonNode) value).doubleValue();
+        }
+        throw typeMismatch(value, label, double.class);
+    }
+
+    static boolean toBoolean(final Object value, final String label) throws ReflectionPathException {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof JsonNode && ((JsonNode) value).isBoolean()) {
+            return ((JsonNode) value).booleanValue();
+        }
+        throw typeMismatch(value, label, boolean.class);
+    }
+
+    private static ReflectionPathException typeMismatch(final Object value, final String label,
+            final Class<?> requestedType) {
+        String actual = value == null ? "null" : "of type " + value.getClass().getName();
+        return new ReflectionPathException("reflectionPath entry '" + label + "' is " + actual + ", not "
+                + requestedType.getName());
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return pathEntry.equals(((PathStep) o).pathEntry);
+    }
+
+    @Override
+    public int hashCode() {
+        return pathEntry.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return pathEntry;
+    }
+
+    /**
+     * Selects a declared field, in the receiver's class or any of its superclasses.
+     */
+    public static final class FieldStep extends PathStep {
+
+        private final String fieldName;
+
+        // the accessor resolved for the most recent receiver class; others come from the FieldAccessor registry.
+        private volatile ResolvedField lastResolved;
+
+        FieldStep(final String fieldName) {
+            super(fieldName);
+            this.fieldName = fieldName;
+        }
+
+        @Override
+        public Kind getKind() {
+            return Kind.FIELD;
+        }
+
+        public String getFieldName() {
+            return fieldName;
+        }
+
+        @Override
+        Object getValue(final Object container, final Serializer serializer) throws ReflectionPathException {
+            if (container instanceof JsonNode) {
+                // a null field isn't written, so a missing member is read as null rather than as a missing field.
+                return JsonNodes.fromNode(toObjectNode(container).get(fieldName));
+            }
+            return resolve(container.getClass()).get(container);
+        }
+
+        @Override
+        void setValue(final Object container, final Object value, final Serializer serializer)
+                throws ReflectionPathException {
+            if (container instanceof JsonNode) {
+                toObjectNode(container).set(fieldName, JsonNodes.toNode(value));
+                return;
+            }
+            resolve(container.getClass()).set(container, value);
+        }
+
+        @Override
+        int getInt(final Object container, final Serializer serializer) throws ReflectionPathException {
+            if (container instanceof JsonNode) {
+                return super.getInt(container, serializer);
+            }
+            return resolve(container.getClass()).getInt(container);
+        }
+
+        @Override
+        long getLong(final Object container, final Serializer serializer) throws ReflectionPathException {
+            if (container instanceof JsonNode) {
+                return super.getLong(container, serializer);
+            }
+            return resolve(container.getClass()).getLong(container);
+        }
+
+        @Override
+        double getDouble(final Object container, final Serializer serializer) throws ReflectionPathException {
+            if (container instanceof JsonNode) {
+                return super.getDouble(container, serializer);
+            }
+            return resolve(container.getClass()).getDouble(container);
+        }
+
+        @Override
+        boolean getBoolean(final Object container, final Serializer serializer) throws ReflectionPathException {
+            if (container instanceof JsonNode) {
+                return super.getBoolean(container, serializer);
+            }
+            return resolve(container.getClass()).getBoolean(container);
+        }
+
+        @Override
+        void setInt(final Object container, final int value, final Serializer serializer)
+                throws ReflectionPathException {
+            if (container instanceof JsonNode) {
+                super.setInt(container, value, serializer);
+                return;
+            }
+            resolve(container.getClass()).setInt(container, value);
+        }
+
+        @Override
+        void setLong(final Object container, final long value, final Serializer serializer)
+                throws ReflectionPathException {
+            if (container instanceof JsonNode) {
+                super.setLong(container, value, serializer);
+                return;
+            }
+            resolve(container.getClass()).setLong(container, value);
+        }
+
+        @Override
+        void setDouble(final Object container, final double value, final Serializer serializer)
+                throws ReflectionPathException {
+            if (container instanceof JsonNode) {
+                super.setDouble(container, value, serializer);
+                return;
+            }
+            resolve(container.getClass()).setDouble(container, value);
+        }
+
+        @Override
+        void setBoolean(final Object container, final boolean value, final Serializer serializer)
+                throws ReflectionPathException {
+            if (container instanceof JsonNode) {
+                super.setBoolean(container, value, serializer);
+                return;
+            }
+            resolve(container.getClass()).setBoolean(container, value);
+        }
+
+        private ObjectNode toObjectNode(final Object container) throws ReflectionPathException {
+            if (!(container instanceof ObjectNode)) {
+                throw new ReflectionPathException("reflectionPath entry '" + getPathEntry()
+                        + "' refers to a field but prior object is a JSON " + ((JsonNode) container).getNodeType());
+            }
+            return (ObjectNode) container;
+        }
+
+        @Override
+        Type getDeclaredType(final Object container) {
+            if (container instanceof JsonNode) {
+                return null;
+            }
+            FieldAccessor accessor = resolve(container.getClass());
+            if (!accessor.exists()) {
+                return null;
+            }
+            return TypeToken.of(container.getClass()).resolveType(accessor.getGenericType()).getType();
+        }
+
+        FieldAccessor resolve(final Class<?> type) {
+            ResolvedField resolved = lastResolved;
+            if (resolved != null && resolved.type == type) {
+                return resolved.accessor;
+            }
+            FieldAccessor accessor = FieldAccessor.forField(type, fieldName);
+            lastResolved = new ResolvedField(type, accessor);
+            return accessor;
+        }
+
+        private static final class ResolvedField {
+
+            final Class<?> type;
+            final FieldAccessor accessor;
+
+            ResolvedField(final Class<?> type, final FieldAccessor accessor) {
+                this.type = type;
+                this.accessor = accessor;
+            }
+        }
+    }
+
+    /**
+     * Selects the value stored under a key in a {@link Map}.
+     */
+    public static final class MapKeyStep extends PathStep {
+
+        private final String key;
+
+        // the key converted for the most recent key class; others come from the MapKeyConverter cache.
+        private volatile ConvertedKey lastConverted;
+
+        MapKeyStep(final String pathEntry, final String key) {
+            super(pathEntry);
+            this.key = key;
+        }
+
+        @Override
+        public Kind getKind() {
+            return Kind.MAP_KEY;
+        }
+
+        /**
+         * @return the key text, without the surrounding braces.
+         */
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        Object getValue(final Object container, final Serializer serializer) throws ReflectionPathException {
+            if (container instanceof ObjectNode) {
+                ObjectNode node = (ObjectNode) container;
+                if (!node.has(key)) {
+                    throw new ReflectionPathException("reflectionPath entry " + getPathEntry() + " does not exist");
+                }
+                return JsonNodes.fromNode(node.get(key));
+            }
+            if (!(container instanceof Map)) {
+                throw new ReflectionPathException("reflectionPath entry '" + getPathEntry()
+                        + "' refers to a map key but prior object is not a Map");
+            }
+            Map<?, ?> map = (Map<?, ?>) container;
+
+            if (map.isEmpty()) {
+                throw new ReflectionPathException("reflectionPath entry " + getPathEntry() + " does not exist");
+            }
+
+            Object mapKey = toMapKey(map, serializer);
+            if (!map.containsKey(mapKey)) {
+                throw new ReflectionPathException("reflectionPath entry " + getPathEntry() + " does not exist");
+            }
+            return map.get(mapKey);
+        }
+
+        @Override
+        void setValue(final Object container, final Object value, final Serializer serializer)
+                throws ReflectionPathException {
+            setValue(container, value, serializer, null);
+        }
+
+        /**
+         * Puts {@code value} into {@code container} under this step's key, converted to the class of the keys already
+         * in the map. An empty map has no keys to go by, so its keys are of the key type of {@code declaredType}, the
+         * declared type of the map, e.g., {@code Integer} for a field of type {@code Map<Integer, String>}; they are
+         * Strings if {@code declaredType} is null or names no key type.
+         */
+        @SuppressWarnings("unchecked")
+        void setValue(final Object container, final Object value, final Serializer serializer,
+                final Type declaredType) throws ReflectionPathException {
+            if (container instanceof ObjectNode) {
+                // member names are always strings, so a node's declared type never matters.
+                ((ObjectNode) container).set(key, JsonNodes.toNode(value));
+                return;
+            }
+            if (!(container instanceof Map)) {
+                throw new ReflectionPathException("reflectionPath entry '" + getPathEntry()
+                        + "' refers to a map key but prior object is not a Map");
+            }
+            Map<Object, Object> map = (Map<Object, Object>) container;
+            Class<?> keyClass = map.isEmpty() ? getDeclaredKeyClass(declaredType) : getKeyClass(map);
+            try {
+                map.put(toMapKey(keyClass, serializer), value);
+            } catch (UnsupportedOperationException | ClassCastException | IllegalArgumentException e) {
+                throw notWritable(e);
+            }
+        }
+
+        /**
+         * @return true if {@link #setValue(Object, Object, Serializer, Type)} needs the declared type of
+         *         {@code container} to write into it, i.e., if it is an empty Map.
+         */
+        boolean needsDeclaredType(final Object container) {
+            return container instanceof Map && ((Map<?, ?>) container).isEmpty();
+        }
+
+        /**
+         * Converts this step's key text to the class of the keys already in {@code map}, which must not be empty.
+         */
+        Object toMapKey(final Map<?, ?> map, final Serializer serializer) throws ReflectionPathException {
+            return toMapKey(getKeyClass(map), serializer);
+        }
+
+        private Object toMapKey(final Class<?> keyClass, final Serializer serializer) throws ReflectionPathException {
+            ConvertedKey converted = lastConverted;
+            if (converted != null && converted.keyClass == keyClass) {
+                return converted.key;
+            }
+            try {
+                Object mapKey = MapKeyConverter.convert(keyClass, key, serializer);
+                lastConverted = new ConvertedKey(keyClass, mapKey);
+                return mapKey;
+            } catch (DeserializingException e) {
+                throw new ReflectionPathException("reflectionPath entry " + getPathEntry()
+                        + " could not be deserialized", e);
+            }
+        }
+
+        // the class of the first non-null key; a map holding nothing but a null key is treated as String-keyed.
+        private static Class<?> getKeyClass(final Map<?, ?> map) {
+            for (Object mapKey : map.keySet()) {
+                if (mapKey instanceof Enum) {
+                    return ((Enum<?>) mapKey).getDeclaringClass();
+                }
+                if (mapKey != null) {
+                    return mapKey.getClass();
+                }
+            }
+            return String.class;
+        }
+
+        // the raw key type of declaredType, if it is a Map type which names one; String otherwise.
+        @SuppressWarnings("unchecked")
+        private static Class<?> getDeclaredKeyClass(final Type declaredType) {
+            if (declaredType == null) {
+                return String.class;
+            }
+            TypeToken<Map<?, ?>> mapType = (TypeToken<Map<?, ?>>) TypeToken.of(declaredType);
+            if (!Map.class.isAssignableFrom(mapType.getRawType())) {
+                return String.class;
+            }
+            Type mapSupertype = mapType.getSupertype(Map.class).getType();
+            if (!(mapSupertype instanceof ParameterizedType)) {
+                return String.class;
+            }
+            Class<?> keyClass = TypeToken.of(((ParameterizedType) mapSupertype).getActualTypeArguments()[0])
+                    .getRawType();
+            return keyClass == Object.class ? String.class : keyClass;
+        }
+
+        private static final class ConvertedKey {
+
+            final Class<?> keyClass;
+            final Object key;
+
+            ConvertedKey(final Class<?> keyClass, final Object key) {
+                this.keyClass = keyClass;
+                this.key = key;
+            }
+        }
+    }
+
+    /**
+     * Selects the n-th element of an array or a {@link Collection}. How the element is reached depends on the shape of
+     * the container:
+     * <ul>
+     * <li>arrays, including primitive arrays, and {@link RandomAccess} lists are indexed directly, in constant time.
+     * Typed reads of a primitive array element don't box it.</li>
+     * <li>other {@link List}s use {@link List#get(int)}; e.g., a {@link java.util.LinkedList} walks from whichever end
+     * is nearer.</li>
+     * <li>{@link Deque}s reach their first and last elements in constant time, and walk from the nearer end
+     * otherwise.</li>
+     * <li>any other Collection is walked in iteration order, after its size has been checked. For sets and other
+     * non-indexed collections this is O(n), and only meaningful if the iteration order is.</li>
+     * </ul>
+     */
+    public static final class CollectionIndexStep extends PathStep {
+
+        private final int index;
+
+        CollectionIndexStep(final String pathEntry, final int index) {
+            super(pathEntry);
+            this.index = index;
+        }
+
+        @Override
+        public Kind getKind() {
+            return Kind.COLLECTION_INDEX;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        @Override
+        Object getValue(final Object container, final Serializer serializer) throws ReflectionPathException {
+            if (container instanceof List) {
+                List<?> list = (List<?>) container;
+                checkIndex(list.size());
+                return list.get(index);
+            }
+            if (container instanceof Object[]) {
+                Object[] array = (Object[]) container;
+                checkIndex(array.length);
+                return array[index];
+            }
+            if (container instanceof ArrayNode) {
+                ArrayNode array = (ArrayNode) container;
+                checkIndex(array.size());
+                return JsonNodes.fromNode(array.get(index));
+            }
+            if (container.getClass().isArray()) {
+                checkIndex(Array.getLength(container));
+                return Array.get(container, index);
+            }
+            if (container instanceof Deque) {
+                Deque<?> deque = (Deque<?>) container;
+                int size = deque.size();
+                checkIndex(size);
+                if (index == 0) {
+                    return deque.peekFirst();
+                }
+                if (index == size - 1) {
+                    return deque.peekLast();
+                }
+                if (index > size / 2) {
+                    return Iterators.get(deque.descendingIterator(), size - 1 - index);
+                }
+                return Iterators.get(deque.iterator(), index);
+            }
+            if (container instanceof Collection) {
+                Collection<?> collection = (Collection<?>) container;
+                checkIndex(collection.size());
+                return Iterators.get(collection.iterator(), index);
+            }
+            throw new ReflectionPathException("reflectionPath entry '" + getPathEntry()
+                    + "' refers to a collection index but prior object is not a Collection");
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void setValue(final Object container, final Object value, final Serializer serializer)
+                throws ReflectionPathException {
+            try {
+                if (container instanceof List) {
+                    List<Object> list = (List<Object>) container;
+                    checkIndex(list.size());
+                    list.set(index, value);
+                } else if (container instanceof Object[]) {
+                    Object[] array = (Object[]) container;
+                    checkIndex(array.length);
+                    array[index] = value;
+                } else if (container instanceof ArrayNode) {
+                    ArrayNode array = (ArrayNode) container;
+                    checkIndex(array.size());
+                    array.set(index, JsonNodes.toNode(value));
+                } else if (container.getClass().isArray()) {
+                    checkIndex(Array.getLength(container));
+                    Array.set(container, index, value);
+                } else {
+                    // sets, deques and other collections have no way to replace the n-th element in place.
+                    throw new ReflectionPathException("reflectionPath entry '" + getPathEntry()
+                            + "' refers to a collection index but prior object is not a List or array");
+                }
+            } catch (UnsupportedOperationException | ClassCastException | IllegalArgumentException
+                    | ArrayStoreException e) {
+                throw notWritable(e);
+            }
+        }
+
+        @Override
+        void setInt(final Object container, final int value, final Serializer serializer)
+                throws ReflectionPathException {
+            if (container instanceof int[]) {
+                int[] array = (int[]) container;
+                checkIndex(array.length);
+                array[index] = value;
+                return;
+            }
+            super.setInt(container, value, serializer);
+        }
+
+        @Override
+        void setLong(final Object container, final long value, final Serializer serializer)
+                throws ReflectionPathException {
+            if (container instanceof long[]) {
+                long[] array = (long[]) container;
+                checkIndex(array.length);
+                array[index] = value;
+                return;
+            }
+            super.setLong(container, value, serializer);
+        }
+
+        @Override
+        void setDouble(final Object container, final double value, final Serializer serializer)
+                throws ReflectionPathException {
+            if (container instanceof double[]) {
+                double[] array = (double[]) container;
+                checkIndex(array.length);
+                array[index] = value;
+                return;
+            }
+            super.setDouble(container, value, serializer);
+        }
+
+        @Override
+        void setBoolean(final Object container, final boolean value, final Serializer serializer)
+                throws ReflectionPathException {
+            if (container instanceof boolean[]) {
+                boolean[] array = (boolean[]) container;
+                checkIndex(array.length);
+                array[index] = value;
+                return;
+            }
+            super.setBoolean(container, value, serializer);
+        }
+
+        @Override
+        int getInt(final Object container, final Serializer serializer) throws ReflectionPathException {
+            if (container instanceof int[]) {
+                int[] array = (int[]) container;
+                checkIndex(array.length);
+                return array[index];
+            }
+            return super.getInt(container, serializer);
+        }
+
+        @Override
+        long getLong(final Object container, final Serializer serializer) throws ReflectionPathException {
+            if (container instanceof long[]) {
+                long[] array = (long[]) container;
+                checkIndex(array.length);
+                return array[index];
+            }
+            return super.getLong(container, serializer);
+        }
+
+        @Override
+        double getDouble(final Object container, final Serializer serializer) throws ReflectionPathException {
+            if (container instanceof double[]) {
+                double[] array = (double[]) container;
+                checkIndex(array.length);
+                return array[index];
+            }
+            return super.getDouble(container, serializer);
+        }
+
+        @Override
+        boolean getBoolean(final Object container, final Serializer serializer) throws ReflectionPathException {
+            if (container instanceof boolean[]) {
+                boolean[] array = (boolean[]) container;
+                checkIndex(array.length);
+                return array[index];
+            }
+            return super.getBoolean(container, serializer);
+        }
+
+        private void checkIndex(final int size) throws ReflectionPathException {
+            if (index >= size) {
+                throw new ReflectionPathException("reflectionPath entry '" + getPathEntry()
+                        + "' refers to a collection index beyond the collection size");
+            }
+        }
+    }
+
+}
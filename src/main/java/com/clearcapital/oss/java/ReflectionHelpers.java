@@ -1,20 +1,22 @@
 package com.clearcapital.oss.java;
 
 import java.lang.annotation.Annotation;
-import java.lang.reflect.Field;
+import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Map;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.reflections.Reflections;
 import org.reflections.scanners.SubTypesScanner;
 import org.reflections.scanners.TypeAnnotationsScanner;
-import org.reflections.util.ClasspathHelper;
 
-import com.clearcapital.oss.java.exceptions.DeserializingException;
 import com.clearcapital.oss.java.exceptions.ReflectionPathException;
-import com.google.common.collect.Iterables;
 
 public class ReflectionHelpers {
 
@@ -23,20 +25,14 @@ public class ReflectionHelpers {
     static final String COLLECTION_INDEX_OPEN = "{";
     static final String COLLECTION_INDEX_CLOSE = "}";
 
+    // keeps paths built from unbounded input from growing the cache without limit.
+    static final int MAX_CACHED_PATHS = 1024;
+
     static Serializer defaultSerializer = null;
 
-    // c.getDeclaredField() could fail, e.g., if the field is in a superclass.
-    private static Field getDeclaredField(Class<?> c, final String name) {
-        for (; c != null; c = c.getSuperclass()) {
-            try {
-                Field result = c.getDeclaredField(name);
-                return result;
-            } catch (NoSuchFieldException | SecurityException e) {
-                // ignore - we'll try again on the super class.
-            }
-        }
-        return null; // not found.
-    }
+    // reflection path -> its compiled form, for the methods here which take a path as a list of entries.
+    private static final ConcurrentMap<List<String>, CompiledReflectionPath> COMPILED_PATHS =
+            new ConcurrentHashMap<>();
 
     /**
      * Returns the value of a given hierarchy of fields, Map keys, and/or Collection indexes as specified in
@@ -90,6 +86,13 @@ public class ReflectionHelpers {
      * </pre>
      * 
      * Furthermore, each entry in {@code reflectionPath} must be non-null and non-empty.
+     * <p/>
+     * Jackson {@code JsonNode} trees, on their own or inside other objects, are walked in place; see
+     * {@link PathStep}.
+     * <p/>
+     * Up to {@value #MAX_CACHED_PATHS} distinct paths are compiled once and cached, so repeating a path doesn't parse
+     * it again; callers evaluating the same path repeatedly may still hold on to a {@link CompiledReflectionPath},
+     * which also saves the cache lookup.
      * 
      * @param sourceObject
      *            the object to look start looking in
@@ -106,74 +109,150 @@ public class ReflectionHelpers {
         if (CollectionUtils.isEmpty(reflectionPath)) {
             return null;
         }
+        return compile(reflectionPath).getValue(sourceObject, serializer);
+    }
 
-        if (reflectionPath.contains(null)) {
-            throw new ReflectionPathException("null entry in reflectionPath is not supported");
-        }
+    /**
+     * Evaluates {@code reflectionPath} against every element of {@code sourceObjects} in parallel, on the common
+     * fork/join pool.
+     * 
+     * @return an array holding the value for {@code sourceObjects.get(i)} at index i
+     * @throws ReflectionPathException
+     *             for the lowest index at which evaluation failed, exactly as a sequential loop over
+     *             {@link #getFieldValue(Object, Collection)} would have
+     * @see CompiledReflectionPath#extractAll(List, Object[], ForkJoinPool)
+     */
+    public static Object[] extractAll(final List<?> sourceObjects, final Collection<String> reflectionPath)
+            throws ReflectionPathException {
+        return extractAll(sourceObjects, reflectionPath, ForkJoinPool.commonPool());
+    }
 
-        Object fieldValue = sourceObject;
-        for (String pathEntry : reflectionPath) {
-            if (pathEntry.equals(".")) {
-                // NOTE: a dot before the end skips any remaining entries
-                break;
-            }
-            if (fieldValue == null) {
-                break;
-            }
-            if (isMapKey(pathEntry)) {
-                String keyString = getMapKey(pathEntry);
-                Map<?, ?> map = (Map<?, ?>) fieldValue;
-
-                if (map.isEmpty()) {
-                    throw new ReflectionPathException("reflectionPath entry " + pathEntry + " does not exist");
-                }
-
-                Map.Entry<?, ?> mapEntry = map.entrySet().iterator().next();
-                Class<?> entryClass = mapEntry.getKey().getClass();
-
-                Object key = null;
-                if (mapEntry.getKey() instanceof String) {
-                    key = keyString;
-                } else if (serializer != null) {
-                    if (mapEntry.getKey() instanceof Enum) {
-                        keyString = "\"" + keyString + "\"";
-                    }
-                    try {
-                        key = serializer.getObject(keyString, entryClass);
-                    } catch (DeserializingException e) {
-                        throw new ReflectionPathException("reflectionPath entry " + pathEntry
-                                + " could not be deserialized", e);
-                    }
-                } else {
-                    throw new ReflectionPathException("reflectionPath entry " + pathEntry
-                            + " could not be deserialized");
-                }
-
-                if (!map.containsKey(key)) {
-                    throw new ReflectionPathException("reflectionPath entry " + pathEntry + " does not exist");
-                }
-                fieldValue = map.get(key);
-
-            } else if (isCollectionIndex(pathEntry)) {
-                try {
-                    int index = getCollectionIndex(pathEntry);
-                    Collection<?> collection = (Collection<?>) fieldValue;
-                    fieldValue = Iterables.get(collection, index);
-                } catch (NumberFormatException e) {
-                    throw new ReflectionPathException("reflectionPath entry '" + pathEntry
-                            + "' refers to a collection index but improperly formed", e);
-                } catch (IndexOutOfBoundsException e) {
-                    throw new ReflectionPathException("reflectionPath entry '" + pathEntry
-                            + "' refers to a collection index beyond the collection size", e);
-                } catch (ClassCastException e) {
-                    throw new ReflectionPathException("reflectionPath entry '" + pathEntry
-                            + "' refers to a collection index but prior object is not a Collection", e);
-                }
-            } else {
-                fieldValue = getFieldValue(fieldValue, pathEntry);
+    /**
+     * Evaluates {@code reflectionPath} against every element of {@code sourceObjects} in parallel, on {@code pool}.
+     * 
+     * @see #extractAll(List, Collection)
+     */
+    public static Object[] extractAll(final List<?> sourceObjects, final Collection<String> reflectionPath,
+            final ForkJoinPool pool) throws ReflectionPathException {
+        return compile(reflectionPath).extractAll(sourceObjects, pool);
+    }
+
+    /**
+     * Returns the {@code int} at the end of {@code reflectionPath}, reading it without boxing when the leaf is an
+     * {@code int} field. See {@link #getFieldValue(Object, Collection, Serializer)} for the path syntax.
+     * 
+     * @throws ReflectionPathException
+     *             if the path is invalid, passes through null, or its leaf is not an {@code int} or {@code Integer}
+     */
+    public static int getIntValue(final Object sourceObject, final Collection<String> reflectionPath)
+            throws ReflectionPathException {
+        return compile(reflectionPath).getInt(sourceObject);
+    }
+
+    /**
+     * Returns the {@code long} at the end of {@code reflectionPath}, reading it without boxing when the leaf is a
+     * {@code long} field.
+     * 
+     * @throws ReflectionPathException
+     *             if the path is invalid, passes through null, or its leaf is not a {@code long} or {@code Long}
+     */
+    public static long getLongValue(final Object sourceObject, final Collection<String> reflectionPath)
+            throws ReflectionPathException {
+        return compile(reflectionPath).getLong(sourceObject);
+    }
+
+    /**
+     * Returns the {@code double} at the end of {@code reflectionPath}, reading it without boxing when the leaf is a
+     * {@code double} field.
+     * 
+     * @throws ReflectionPathException
+     *             if the path is invalid, passes through null, or its leaf is not a {@code double} or {@code Double}
+     */
+    public static double getDoubleValue(final Object sourceObject, final Collection<String> reflectionPath)
+            throws ReflectionPathException {
+        return compile(reflectionPath).getDouble(sourceObject);
+    }
+
+    /**
+     * Returns the {@code boolean} at the end of {@code reflectionPath}.
+     * 
+     * @throws ReflectionPathException
+     *             if the path is invalid, passes through null, or its leaf is not a {@code boolean} or
+     *             {@code Boolean}
+     */
+    public static boolean getBooleanValue(final Object sourceObject, final Collection<String> reflectionPath)
+            throws ReflectionPathException {
+        return compile(reflectionPath).getBoolean(sourceObject);
+    }
+
+    /**
+     * Sets the {@code int} field at the end of {@code reflectionPath}, writing it without boxing when the field is an
+     * {@code int}.
+     * 
+     * @throws ReflectionPathException
+     *             if the path is invalid, passes through null, or does not end in an {@code int} or {@code Integer}
+     *             field
+     */
+    public static void setIntValue(final Object targetObject, final Collection<String> reflectionPath,
+            final int value) throws ReflectionPathException {
+        compile(reflectionPath).setInt(targetObject, value);
+    }
+
+    /**
+     * Sets the {@code long} field at the end of {@code reflectionPath}, writing it without boxing when the field is a
+     * {@code long}.
+     * 
+     * @throws ReflectionPathException
+     *             if the path is invalid, passes through null, or does not end in a {@code long} or {@code Long}
+     *             field
+     */
+    public static void setLongValue(final Object targetObject, final Collection<String> reflectionPath,
+            final long value) throws ReflectionPathException {
+        compile(reflectionPath).setLong(targetObject, value);
+    }
+
+    /**
+     * Sets the {@code double} field at the end of {@code reflectionPath}, writing it without boxing when the field is
+     * a {@code double}.
+     * 
+     * @throws ReflectionPathException
+     *             if the path is invalid, passes through null, or does not end in a {@code double} or
+     *             {@code Double} field
+     */
+    public static void setDoubleValue(final Object targetObject, final Collection<String> reflectionPath,
+            final double value) throws ReflectionPathException {
+        compile(reflectionPath).setDouble(targetObject, value);
+    }
+
+    /**
+     * Sets the {@code boolean} field at the end of {@code reflectionPath}.
+     * 
+     * @throws ReflectionPathException
+     *             if the path is invalid, passes through null, or does not end in a {@code boolean} or
+     *             {@code Boolean} field
+     */
+    public static void setBooleanValue(final Object targetObject, final Collection<String> reflectionPath,
+            final boolean value) throws ReflectionPathException {
+        compile(reflectionPath).setBoolean(targetObject, value);
+    }
+
+    // the cached compiled form of reflectionPath. A List is looked up as it is, without copying it.
+    private static CompiledReflectionPath compile(final Collection<String> reflectionPath)
+            throws ReflectionPathException {
+        if (reflectionPath == null) {
+            return CompiledReflectionPath.compile(reflectionPath);
+        }
+        List<String> key = reflectionPath instanceof List ? (List<String>) reflectionPath : new ArrayList<>(
+                reflectionPath);
+        CompiledReflectionPath path = COMPILED_PATHS.get(key);
+        if (path == null) {
+            path = CompiledReflectionPath.compile(reflectionPath);
+            if (COMPILED_PATHS.size() < MAX_CACHED_PATHS) {
+                // keyed by the path's own copy, since callers may go on to change the list they passed in.
+                COMPILED_PATHS.putIfAbsent(path.getReflectionPath(), path);
             }
         }
-        return fieldValue;
+        return path;
     }
 
     /**
@@ -253,82 +332,162 @@ public class ReflectionHelpers {
      *             if {@code fieldName} is not declared or is not accessible
      */
     public static Object getFieldValue(final Object object, final String fieldName) throws ReflectionPathException {
-        Field field = getDeclaredField(object.getClass(), fieldName);
-        if (null == field) {
-            throw new ReflectionPathException("field " + fieldName + " does not exist", new NoSuchFieldException());
-        }
-        try {
-            boolean isAccessible = field.isAccessible();
-            field.setAccessible(true);
-            Object value = field.get(object);
-            field.setAccessible(isAccessible);
-            return value;
-        } catch (IllegalArgumentException | IllegalAccessException e) {
-            throw new ReflectionPathException("field " + fieldName + " is not accessible", e);
-        }
+        return FieldAccessor.forField(object.getClass(), fieldName).get(object);
     }
 
     public static Object setFieldValue(final Object object, final String name, final Object value)
             throws ReflectionPathException {
-        try {
-            Field field = getDeclaredField(object.getClass(), name);
-            if (null == field) {
-                throw new NoSuchFieldException();
-            }
-            boolean isAccessible = field.isAccessible();
-            field.setAccessible(true);
-            field.set(object, value);
-            field.setAccessible(isAccessible);
-            return value;
-        } catch (NoSuchFieldException e) {
-            throw new ReflectionPathException("Field \"" + name + "\" not found in object", e);
-        } catch (IllegalArgumentException | IllegalAccessException e) {
-            throw new ReflectionPathException("Could not set field \"" + name + "\" in object", e);
+        FieldAccessor.forField(object.getClass(), name).set(object, value);
+        return value;
+    }
+
+    /**
+     * Writes {@code value} at the end of {@code reflectionPath}, starting from {@code targetObject}. The path syntax is
+     * that of {@link #getFieldValue(Object, Collection, Serializer)}; the last entry may name a field, a Map key, or
+     * an index into a List or array.
+     * <p/>
+     * This overloads {@link #setFieldValue(Object, String, Object)}, as the two forms of {@code getFieldValue} do, so
+     * a literal {@code null} in place of the name or path no longer compiles; cast it to the form meant. A null field
+     * name was never valid, and a null path is rejected.
+     * 
+     * @return {@code value}
+     * @throws ReflectionPathException
+     *             if the path is empty, invalid or passes through null, or if its last entry can't be written
+     * @see CompiledReflectionPath#setValue(Object, Object, Serializer)
+     */
+    public static Object setFieldValue(final Object targetObject, final Collection<String> reflectionPath,
+            final Object value) throws ReflectionPathException {
+        compile(reflectionPath).setValue(targetObject, value);
+        return value;
+    }
+
+    /**
+     * Opts in to generated field accessors: once a {@link FieldAccessor} has been read {@code promotionThreshold}
+     * times, through {@link #getFieldValue(Object, String)}, a reflection path or directly, its reads go through a
+     * class generated for that field which reads it with a plain field instruction, so that the JIT can inline the
+     * read like a hand-written getter chain. Values read are the same as through the accessor's method handle.
+     * <p/>
+     * Classes are generated as hidden classes on Java 15 and later, and with {@code Unsafe.defineAnonymousClass} on
+     * Java 8; on runtimes with neither, and for fields of classes which can't be named, such as lambdas, reads stay
+     * on the method handle. Each promoted field costs one small class.
+     *
+     * @param promotionThreshold
+     *            number of reads before an accessor is promoted; 0 promotes on first use
+     */
+    public static void enableGeneratedAccessors(final int promotionThreshold) {
+        if (promotionThreshold < 0) {
+            throw new IllegalArgumentException("promotionThreshold must not be negative");
         }
+        FieldAccessor.setPromotionThreshold(promotionThreshold);
     }
 
-	public static Reflections getReflections(final Collection<String> packageNames) {
-		Reflections reflections = null;
-		for (String packageName : packageNames) {
-            Reflections packageReflections = getReflections(packageName);
-			if (reflections == null) {
-				reflections = packageReflections;
-			} else {
-				reflections.merge(packageReflections);
-			}
-		}
-		return reflections;
-	}
+    /**
+     * Stops promoting accessors to generated classes. This is the default. Accessors already promoted stay promoted.
+     */
+    public static void disableGeneratedAccessors() {
+        FieldAccessor.setPromotionThreshold(-1);
+    }
 
+    /**
+     * Returns a reusable accessor for the field {@code fieldName} declared in {@code type} or one of its superclasses.
+     * Accessors are resolved once per (class, field name) and cached, so this is cheap to call repeatedly, and the
+     * result may also be held on to.
+     * 
+     * @throws ReflectionPathException
+     *             if {@code fieldName} is not declared
+     */
+    public static FieldAccessor getFieldAccessor(final Class<?> type, final String fieldName)
+            throws ReflectionPathException {
+        FieldAccessor accessor = FieldAccessor.forField(type, fieldName);
+        if (!accessor.exists()) {
+            throw new ReflectionPathException("field " + fieldName + " does not exist", new NoSuchFieldException(
+                    fieldName));
+        }
+        return accessor;
+    }
+
+    /**
+     * Returns the classpath metadata for all of {@code packageNames}, or null if there are none.
+     * <p/>
+     * Each package is scanned at most once per process, with a {@link TypeAnnotationsScanner} and a
+     * {@link SubTypesScanner}; later calls merge the cached scans into the returned instance, which the caller is free
+     * to modify.
+     *
+     * @see #setClasspathUrlExclusions(Collection)
+     */
+    public static Reflections getReflections(final Collection<String> packageNames) {
+        return ReflectionsCache.getReflections(packageNames);
+    }
+
+    /**
+     * As {@link #getReflections(Collection)}, but leaving out the classpath URLs which match any of the regular
+     * expressions in {@code excludedUrlPatterns}, in place of those set by
+     * {@link #setClasspathUrlExclusions(Collection)}. Scans are cached per set of exclusions.
+     */
+    public static Reflections getReflections(final Collection<String> packageNames,
+            final Collection<String> excludedUrlPatterns) {
+        return ReflectionsCache.getReflections(packageNames, ReflectionsCache.compile(excludedUrlPatterns));
+    }
+
+    /**
+     * @see #getReflections(Collection)
+     */
     public static Reflections getReflections(final String packageName) {
-        Reflections packageReflections = new Reflections(ClasspathHelper.forPackage(packageName),
-                new TypeAnnotationsScanner(), new SubTypesScanner());
-        return packageReflections;
+        return ReflectionsCache.getReflections(Collections.singletonList(packageName));
     }
 
+    /**
+     * @see #getReflections(Collection)
+     */
     public static Reflections getReflections(final Package[] packages) {
-        Reflections reflections = null;
+        List<String> packageNames = new ArrayList<>(packages.length);
         for (Package item : packages) {
-            Reflections packageReflections = new Reflections(ClasspathHelper.forPackage(item.getName()),
-                    new TypeAnnotationsScanner(), new SubTypesScanner());
-            if (reflections == null) {
-                reflections = packageReflections;
-            } else {
-                reflections.merge(packageReflections);
-            }
+            packageNames.add(item.getName());
         }
-        return reflections;
+        return ReflectionsCache.getReflections(packageNames);
+    }
+
+    /**
+     * Returns the classpath roots, i.e., the jars and directories, which contain {@code packageName}, less those left
+     * out by {@link #setClasspathUrlExclusions(Collection)}.
+     */
+    public static Set<URL> getClasspathRoots(final String packageName) {
+        return ReflectionsCache.getRoots(packageName);
+    }
+
+    /**
+     * Returns the classpath metadata for the classpath roots {@code roots}. Each root is scanned at most once per
+     * process, as by {@link #getReflections(Collection)}, and the returned instance may be modified.
+     */
+    public static Reflections getReflectionsOfRoots(final Collection<URL> roots) {
+        return ReflectionsCache.getReflectionsOfRoots(roots);
     }
 
     public static Set<Class<?>> getTypesAnnotatedWith(String packageName,
             final Class<? extends Annotation> annotation) {
-        Reflections reflections = getReflections(packageName);
-        return reflections.getTypesAnnotatedWith(annotation);
+        // the cached scan is only read here, so it needn't be copied.
+        return ReflectionsCache.getScan(packageName).getTypesAnnotatedWith(annotation);
     }
 
-	public static Set<Class<?>> getTypesAnnotatedWith(Collection<String> packageNames, Class<? extends Annotation> annotation) {
+    public static Set<Class<?>> getTypesAnnotatedWith(Collection<String> packageNames,
+            Class<? extends Annotation> annotation) {
         Reflections reflections = getReflections(packageNames);
         return reflections.getTypesAnnotatedWith(annotation);
-	}
+    }
+
+    /**
+     * Leaves classpath URLs matching any of the regular expressions in {@code patterns} out of every subsequent scan,
+     * e.g., {@code "/jre/lib/"} to skip the JDK's own jars. Scans cached before the call are discarded.
+     */
+    public static void setClasspathUrlExclusions(final Collection<String> patterns) {
+        ReflectionsCache.setExcludedUrls(patterns);
+    }
+
+    /**
+     * Discards every cached classpath scan, e.g., after the classpath has changed.
+     */
+    public static void clearReflectionsCache() {
+        ReflectionsCache.clear();
+    }
 
-}
\ No newline at end of file
+}
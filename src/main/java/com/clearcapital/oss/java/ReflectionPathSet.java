@@ -0,0 +1,271 @@
+package com.clearcapital.oss.java;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+
+import com.clearcapital.oss.java.exceptions.ReflectionPathException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+
+/**
+ * A fixed, ordered set of reflection paths which are evaluated together, one row of values per source object, or
+ * written together, one row of values per target object.
+ * <p/>
+ * The paths are merged into a prefix tree of {@link PathStep}s, so that a prefix shared by several paths, e.g.,
+ * "address" in ["address", "city"] and ["address", "zip"], is walked once per source object rather than once per path.
+ * Values are written into a caller-provided {@code Object[]} row, in the order the paths were given. As with
+ * {@link CompiledReflectionPath#getValue(Object, Serializer)}, a path which runs into a null yields null.
+ * <p/>
+ * Instances are thread-safe and intended to be compiled once and kept.
+ */
+public final class ReflectionPathSet {
+
+    /**
+     * Receives one row of values per source object.
+     */
+    public interface RowHandler {
+
+        /**
+         * @param sourceObject
+         *            the object the row was extracted from
+         * @param row
+         *            the extracted values, one per path. The same array is reused for every row, so copy it to keep it.
+         */
+        void handleRow(Object sourceObject, Object[] row) throws ReflectionPathException;
+    }
+
+    private final List<CompiledReflectionPath> paths;
+    private final Node root;
+
+    private ReflectionPathSet(final List<CompiledReflectionPath> paths) {
+        this.paths = paths;
+        this.root = Node.build(paths);
+    }
+
+    /**
+     * Compiles each of {@code reflectionPaths} and merges them into a set.
+     *
+     * @throws ReflectionPathException
+     *             if any path is null or contains a null entry
+     */
+    public static ReflectionPathSet compile(final List<? extends Collection<String>> reflectionPaths)
+            throws ReflectionPathException {
+        ImmutableList.Builder<CompiledReflectionPath> paths = ImmutableList.builder();
+        for (Collection<String> reflectionPath : reflectionPaths) {
+            paths.add(CompiledReflectionPath.compile(reflectionPath));
+        }
+        return new ReflectionPathSet(paths.build());
+    }
+
+    /**
+     * Merges already compiled paths into a set.
+     */
+    public static ReflectionPathSet of(final List<CompiledReflectionPath> paths) {
+        return new ReflectionPathSet(ImmutableList.copyOf(paths));
+    }
+
+    public List<CompiledReflectionPath> getPaths() {
+        return paths;
+    }
+
+    /**
+     * @return the number of paths, which is also the minimum length of a row.
+     */
+    public int size() {
+        return paths.size();
+    }
+
+    /**
+     * Evaluates every path against {@code sourceObject}, using the default serializer for non-String map keys.
+     *
+     * @return a new row holding one value per path
+     */
+    public Object[] getValues(final Object sourceObject) throws ReflectionPathException {
+        Object[] row = new Object[size()];
+        getValues(sourceObject, row, ReflectionHelpers.defaultSerializer);
+        return row;
+    }
+
+    /**
+     * Evaluates every path against {@code sourceObject}, writing the value of the i-th path into {@code row[i]}.
+     *
+     * @throws ReflectionPathException
+     *             if any portion of any path is invalid, not declared or not accessible
+     * @throws IllegalArgumentException
+     *             if {@code row} is shorter than {@link #size()}
+     */
+    public void getValues(final Object sourceObject, final Object[] row, final Serializer serializer)
+            throws ReflectionPathException {
+        if (row.length < paths.size()) {
+            throw new IllegalArgumentException("row has " + row.length + " slots, but there are " + paths.size()
+                    + " paths");
+        }
+        fill(root, sourceObject, row, serializer);
+    }
+
+    /**
+     * Evaluates every path against each of {@code sourceObjects} in turn, handing each row to {@code handler}. A
+     * single row array is reused throughout.
+     */
+    public void getValues(final Iterable<?> sourceObjects, final RowHandler handler) throws ReflectionPathException {
+        Serializer serializer = ReflectionHelpers.defaultSerializer;
+        Object[] row = new Object[size()];
+        for (Object sourceObject : sourceObjects) {
+            fill(root, sourceObject, row, serializer);
+            handler.handleRow(sourceObject, row);
+        }
+    }
+
+    /**
+     * Evaluates every path against each remaining element of {@code sourceObjects} in turn, handing each row to
+     * {@code handler}. A single row array is reused throughout.
+     */
+    public void getValues(final Spliterator<?> sourceObjects, final RowHandler handler)
+            throws ReflectionPathException {
+        Serializer serializer = ReflectionHelpers.defaultSerializer;
+        Object[] row = new Object[size()];
+        Object[] current = new Object[1];
+        while (sourceObjects.tryAdvance(sourceObject -> current[0] = sourceObject)) {
+            fill(root, current[0], row, serializer);
+            handler.handleRow(current[0], row);
+        }
+    }
+
+    /**
+     * Writes {@code values[i]} at the end of the i-th path, starting from {@code targetObject}, using the default
+     * serializer for non-String map keys.
+     *
+     * @see #setValues(Object, Object[], Serializer)
+     */
+    public void setValues(final Object targetObject, final Object[] values) throws ReflectionPathException {
+        setValues(targetObject, values, ReflectionHelpers.defaultSerializer);
+    }
+
+    /**
+     * Writes {@code values[i]} at the end of the i-th path, starting from {@code targetObject}, in a single walk over
+     * the prefix tree: each shared prefix is read once, and each path's last step is written as by
+     * {@link CompiledReflectionPath#setValue(Object, Object, Serializer)}.
+     * <p/>
+     * Where one path is a prefix of another, e.g., ["address"] and ["address", "city"], the shorter one is written
+     * first, and the longer one then writes into the new value.
+     *
+     * @throws ReflectionPathException
+     *             if any path is empty, invalid or passes through null, or if its last step can't be written
+     * @throws IllegalArgumentException
+     *             if {@code values} is shorter than {@link #size()}
+     */
+    public void setValues(final Object targetObject, final Object[] values, final Serializer serializer)
+            throws ReflectionPathException {
+        if (values.length < paths.size()) {
+            throw new IllegalArgumentException("values has " + values.length + " slots, but there are "
+                    + paths.size() + " paths");
+        }
+        if (root.columns.length > 0) {
+            throw new ReflectionPathException("reflectionPath " + paths.get(root.columns[0])
+                    + " does not name a field");
+        }
+        assign(root, targetObject, null, values, serializer);
+    }
+
+    // node.step selected container from parent; both are null at the root.
+    private static void assign(final Node node, final Object container, final Object parent, final Object[] values,
+            final Serializer serializer) throws ReflectionPathException {
+        for (Node child : node.children) {
+            if (container == null) {
+                throw new ReflectionPathException("reflectionPath entry '" + child.step.getPathEntry()
+                        + "' can not be written through a null value");
+            }
+            for (int column : child.columns) {
+                if (child.step instanceof PathStep.MapKeyStep
+                        && ((PathStep.MapKeyStep) child.step).needsDeclaredType(container)) {
+                    Type declaredType = node.step == null ? null : node.step.getDeclaredType(parent);
+                    ((PathStep.MapKeyStep) child.step).setValue(container, values[column], serializer, declaredType);
+                } else {
+                    child.step.setValue(container, values[column], serializer);
+                }
+            }
+            if (child.children.length > 0) {
+                assign(child, child.step.getValue(container, serializer), container, values, serializer);
+            }
+        }
+    }
+
+    private static void fill(final Node node, final Object value, final Object[] row, final Serializer serializer)
+            throws ReflectionPathException {
+        for (int column : node.columns) {
+            row[column] = value;
+        }
+        for (Node child : node.children) {
+            Object childValue = value == null ? null : child.step.getValue(value, serializer);
+            fill(child, childValue, row, serializer);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return paths.toString();
+    }
+
+    /**
+     * One step in the prefix tree, with the columns of the paths that end here.
+     */
+    static final class Node {
+
+        final PathStep step;
+        final int[] columns;
+        final Node[] children;
+
+        private Node(final PathStep step, final int[] columns, final Node[] children) {
+            this.step = step;
+            this.columns = columns;
+            this.children = children;
+        }
+
+        static Node build(final List<CompiledReflectionPath> paths) {
+            Builder root = new Builder(null);
+            for (int column = 0; column < paths.size(); column++) {
+                Builder node = root;
+                for (PathStep step : paths.get(column).getSteps()) {
+                    node = node.child(step);
+                }
+                node.columns.add(column);
+            }
+            return root.build();
+        }
+
+        private static final class Builder {
+
+            final PathStep step;
+            final List<Integer> columns = new ArrayList<>();
+            final Map<PathStep, Builder> children = new LinkedHashMap<>();
+
+            Builder(final PathStep step) {
+                this.step = step;
+            }
+
+            Builder child(final PathStep childStep) {
+                Builder child = children.get(childStep);
+                if (child == null) {
+                    child = new Builder(childStep);
+                    children.put(childStep, child);
+                }
+                return child;
+            }
+
+            Node build() {
+                Node[] builtChildren = new Node[children.size()];
+                int i = 0;
+                for (Builder child : children.values()) {
+                    builtChildren[i++] = child.build();
+                }
+                return new Node(step, Ints.toArray(columns), builtChildren);
+            }
+        }
+    }
+
+}
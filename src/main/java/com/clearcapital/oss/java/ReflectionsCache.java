@@ -0,0 +1,325 @@
+package com.clearcapital.oss.java;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import org.reflections.Reflections;
+import org.reflections.scanners.Scanner;
+import org.reflections.scanners.SubTypesScanner;
+import org.reflections.scanners.TypeAnnotationsScanner;
+import org.reflections.util.ClasspathHelper;
+import org.reflections.util.ConfigurationBuilder;
+
+import com.google.common.base.Objects;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Process-wide cache of classpath scans, keyed by package, scanner set and URL exclusions, so that each package is
+ * scanned from disk at most once.
+ * <p/>
+ * Underneath, each classpath root (jar or directory) is scanned on its own and cached by URL and scanner set, and a
+ * package's scan is the merge of the scans of the roots that contain it. When several uncached packages are looked up
+ * together, the distinct roots they need are scanned concurrently, and a root shared by several of them is read once.
+ * The merged metadata is the same as that of one scan over all of the roots.
+ * <p/>
+ * Cached scans are never handed out, since {@link Reflections#merge(Reflections)} mutates its target. Callers get a
+ * fresh instance with one or more cached scans merged into it, which costs a copy of the scanned metadata rather than
+ * a walk over jars.
+ */
+final class ReflectionsCache {
+
+    static final List<Class<? extends Scanner>> DEFAULT_SCANNERS = ImmutableList
+            .<Class<? extends Scanner>> of(TypeAnnotationsScanner.class, SubTypesScanner.class);
+
+    // bounds the threads one multi-package lookup may use; scanning is mostly I/O and unzipping.
+    static final int MAX_SCAN_THREADS = 8;
+
+    private static volatile List<Pattern> excludedUrls = ImmutableList.of();
+
+    // one scan per classpath root, shared by every package found there.
+    private static final LoadingCache<UrlKey, Reflections> URL_SCANS = CacheBuilder.newBuilder().build(
+            new CacheLoader<UrlKey, Reflections>() {
+
+                @Override
+                public Reflections load(final UrlKey key) throws Exception {
+                    return scanUrl(key);
+                }
+            });
+
+    private static final LoadingCache<Key, Reflections> SCANS = CacheBuilder.newBuilder().build(
+            new CacheLoader<Key, Reflections>() {
+
+                @Override
+                public Reflections load(final Key key) throws Exception {
+                    return scan(key);
+                }
+            });
+
+    private ReflectionsCache() {
+    }
+
+    /**
+     * Returns the cached scan of {@code packageName} with the default scanners, scanning it first if need be. The
+     * result is shared and must not be modified.
+     */
+    static Reflections getScan(final String packageName) {
+        return SCANS.getUnchecked(new Key(packageName, DEFAULT_SCANNERS, excludedUrls));
+    }
+
+    /**
+     * Returns a new {@link Reflections} holding the scans of all of {@code packageNames}, or null if there are none.
+     */
+    static Reflections getReflections(final Collection<String> packageNames) {
+        return getReflections(packageNames, excludedUrls);
+    }
+
+    /**
+     * As {@link #getReflections(Collection)}, but with {@code exclusions} in place of the exclusions set by
+     * {@link #setExcludedUrls(Collection)}.
+     */
+    static Reflections getReflections(final Collection<String> packageNames, final List<Pattern> exclusions) {
+        if (packageNames.isEmpty()) {
+            return null;
+        }
+        List<Key> keys = new ArrayList<>(packageNames.size());
+        List<Key> missing = new ArrayList<>();
+        for (String packageName : packageNames) {
+            Key key = new Key(packageName, DEFAULT_SCANNERS, exclusions);
+            keys.add(key);
+            if (SCANS.getIfPresent(key) == null) {
+                missing.add(key);
+            }
+        }
+        if (missing.size() > 1) {
+            prefetch(missing);
+        }
+        List<Reflections> scans = new ArrayList<>(keys.size());
+        for (Key key : keys) {
+            scans.add(SCANS.getUnchecked(key));
+        }
+        return merge(scans, DEFAULT_SCANNERS);
+    }
+
+    /**
+     * Returns the classpath roots which contain {@code packageName}, less those the current exclusions leave out.
+     */
+    static Set<URL> getRoots(final String packageName) {
+        return getUrls(new Key(packageName, DEFAULT_SCANNERS, excludedUrls));
+    }
+
+    /**
+     * Returns a new {@link Reflections} holding the scans of the classpath roots {@code urls}, with the default
+     * scanners. Roots which haven't been scanned yet are scanned concurrently.
+     */
+    static Reflections getReflectionsOfRoots(final Collection<URL> urls) {
+        Set<UrlKey> keys = new LinkedHashSet<>();
+        for (URL url : urls) {
+            keys.add(new UrlKey(url, DEFAULT_SCANNERS));
+        }
+        scanMissing(keys);
+        List<Reflections> scans = new ArrayList<>(keys.size());
+        for (UrlKey key : keys) {
+            scans.add(URL_SCANS.getUnchecked(key));
+        }
+        return merge(scans, DEFAULT_SCANNERS);
+    }
+
+    /**
+     * Excludes classpath URLs which match any of {@code patterns}, e.g., {@code "/jdk/"} or {@code "scala-library"},
+     * from every subsequent scan. Scans cached under the previous exclusions are dropped.
+     */
+    static void setExcludedUrls(final Collection<String> patterns) {
+        excludedUrls = compile(patterns);
+        SCANS.invalidateAll();
+    }
+
+    static List<Pattern> compile(final Collection<String> patterns) {
+        ImmutableList.Builder<Pattern> compiled = ImmutableList.builder();
+        for (String pattern : patterns) {
+            compiled.add(Pattern.compile(pattern));
+        }
+        return compiled.build();
+    }
+
+    static void clear() {
+        SCANS.invalidateAll();
+        URL_SCANS.invalidateAll();
+    }
+
+    private static Reflections scan(final Key key) {
+        List<Reflections> urlScans = new ArrayList<>();
+        for (URL url : getUrls(key)) {
+            urlScans.add(URL_SCANS.getUnchecked(new UrlKey(url, key.scanners)));
+        }
+        return merge(urlScans, key.scanners);
+    }
+
+    private static Set<URL> getUrls(final Key key) {
+        Set<URL> urls = new LinkedHashSet<>();
+        for (URL url : ClasspathHelper.forPackage(key.packageName)) {
+            if (!isExcluded(url, key.excludedUrls)) {
+                urls.add(url);
+            }
+        }
+        return urls;
+    }
+
+    private static Reflections scanUrl(final UrlKey key) throws ReflectiveOperationException {
+        Scanner[] scanners = new Scanner[key.scanners.size()];
+        for (int i = 0; i < scanners.length; i++) {
+            scanners[i] = key.scanners.get(i).getDeclaredConstructor().newInstance();
+        }
+        return new Reflections(new ConfigurationBuilder().setUrls(key.url).setScanners(scanners));
+    }
+
+    /**
+     * Scans every URL that one of {@code keys} needs and that hasn't been scanned yet, concurrently, so that a
+     * subsequent {@link #scan(Key)} of each only merges. A URL needed by several packages is only scanned once.
+     */
+    private static void prefetch(final List<Key> keys) {
+        Set<UrlKey> urlKeys = new LinkedHashSet<>();
+        for (Key key : keys) {
+            for (URL url : getUrls(key)) {
+                urlKeys.add(new UrlKey(url, key.scanners));
+            }
+        }
+        scanMissing(urlKeys);
+    }
+
+    // scans those of urlKeys which haven't been scanned yet, concurrently if there are several.
+    private static void scanMissing(final Set<UrlKey> urlKeys) {
+        Set<UrlKey> missing = new LinkedHashSet<>();
+        for (UrlKey urlKey : urlKeys) {
+            if (URL_SCANS.getIfPresent(urlKey) == null) {
+                missing.add(urlKey);
+            }
+        }
+        if (missing.size() < 2) {
+            return;
+        }
+        int threads = Math.min(missing.size(), Math.min(MAX_SCAN_THREADS, Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setDaemon(true)
+                .setNameFormat("classpath-scan-%d").build());
+        try {
+            List<Future<Reflections>> scans = new ArrayList<>(missing.size());
+            for (final UrlKey urlKey : missing) {
+                scans.add(executor.submit(new Callable<Reflections>() {
+
+                    @Override
+                    public Reflections call() {
+                        return URL_SCANS.getUnchecked(urlKey);
+                    }
+                }));
+            }
+            for (Future<Reflections> scan : scans) {
+                Futures.getUnchecked(scan);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static boolean isExcluded(final URL url, final List<Pattern> patterns) {
+        String externalForm = url.toExternalForm();
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(externalForm).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Reflections merge(final List<Reflections> scans, final List<Class<? extends Scanner>> scanners) {
+        Set<URL> urls = new LinkedHashSet<>();
+        for (Reflections scan : scans) {
+            urls.addAll(scan.getConfiguration().getUrls());
+        }
+        // no scanners, so the constructor doesn't scan; merge() fills the store in instead.
+        Reflections merged = new Reflections(new ConfigurationBuilder().setUrls(urls).setScanners());
+        // merge() skips empty indexes, and there may be no scans at all, but querying an index which doesn't exist
+        // throws. A scan creates an index for each of its scanners up front, so do the same.
+        for (Class<? extends Scanner> scanner : scanners) {
+            merged.getStore().getOrCreate(scanner.getSimpleName());
+        }
+        for (Reflections scan : scans) {
+            merged.merge(scan);
+        }
+        return merged;
+    }
+
+    private static final class Key {
+
+        final String packageName;
+        final List<Class<? extends Scanner>> scanners;
+        final List<Pattern> excludedUrls;
+        // Pattern has no equals(), so the exclusions are compared by their text.
+        final List<String> excludedUrlPatterns;
+
+        Key(final String packageName, final List<Class<? extends Scanner>> scanners,
+                final List<Pattern> excludedUrls) {
+            this.packageName = packageName;
+            this.scanners = scanners;
+            this.excludedUrls = excludedUrls;
+            this.excludedUrlPatterns = new ArrayList<>(excludedUrls.size());
+            for (Pattern pattern : excludedUrls) {
+                excludedUrlPatterns.add(pattern.pattern());
+            }
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return packageName.equals(other.packageName) && scanners.equals(other.scanners)
+                    && excludedUrlPatterns.equals(other.excludedUrlPatterns);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(packageName, scanners, excludedUrlPatterns);
+        }
+    }
+
+    private static final class UrlKey {
+
+        final URL url;
+        final List<Class<? extends Scanner>> scanners;
+
+        UrlKey(final URL url, final List<Class<? extends Scanner>> scanners) {
+            this.url = url;
+            this.scanners = scanners;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof UrlKey)) {
+                return false;
+            }
+            UrlKey other = (UrlKey) obj;
+            // URL.equals resolves host names, so compare the text instead.
+            return url.toExternalForm().equals(other.url.toExternalForm()) && scanners.equals(other.scanners);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(url.toExternalForm(), scanners);
+        }
+    }
+
+}
@@ -1,9 +1,28 @@
 package com.clearcapital.oss.java;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
 import com.clearcapital.oss.java.exceptions.DeserializingException;
 import com.clearcapital.oss.java.exceptions.SerializingException;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.io.CharStreams;
 
+/**
+ * Converts objects to and from a serialized representation.
+ * <p/>
+ * Only the String forms must be implemented. The stream and byte array forms default to going through a String, with
+ * bytes encoded as UTF-8; implementations which can read and write streams directly should override them. Streams
+ * passed in are never closed.
+ * <p/>
+ * The other forms have names of their own rather than overloading getObject, so that {@code getObject(null, type)}
+ * still resolves to the String form.
+ */
 public interface Serializer {
 
     public <T> T getObject(String stringRepresentation, Class<T> targetType) throws DeserializingException;
@@ -12,4 +31,86 @@ public interface Serializer {
 
     public String getStringRepresentation(Object objectRepresentation) throws SerializingException;
 
+    public default <T> T getObjectFromBytes(byte[] representation, Class<T> targetType) throws DeserializingException {
+        return getObject(representation == null ? null : new String(representation, StandardCharsets.UTF_8),
+                targetType);
+    }
+
+    public default <T> T getObjectFromBytes(byte[] representation, TypeReference<T> type)
+            throws DeserializingException {
+        return getObject(representation == null ? null : new String(representation, StandardCharsets.UTF_8), type);
+    }
+
+    public default <T> T getObjectFromStream(InputStream representation, Class<T> targetType)
+            throws DeserializingException {
+        return getObjectFromReader(representation == null ? null : new InputStreamReader(representation,
+                StandardCharsets.UTF_8), targetType);
+    }
+
+    public default <T> T getObjectFromStream(InputStream representation, TypeReference<T> type)
+            throws DeserializingException {
+        return getObjectFromReader(representation == null ? null : new InputStreamReader(representation,
+                StandardCharsets.UTF_8), type);
+    }
+
+    public default <T> T getObjectFromReader(Reader representation, Class<T> targetType) throws DeserializingException {
+        try {
+            return getObject(representation == null ? null : CharStreams.toString(representation), targetType);
+        } catch (IOException e) {
+            throw new DeserializingException("Could not read representation", e);
+        }
+    }
+
+    public default <T> T getObjectFromReader(Reader representation, TypeReference<T> type)
+            throws DeserializingException {
+        try {
+            return getObject(representation == null ? null : CharStreams.toString(representation), type);
+        } catch (IOException e) {
+            throw new DeserializingException("Could not read representation", e);
+        }
+    }
+
+    /**
+     * @return the representation of {@code objectRepresentation} as bytes, or null if it is null.
+     */
+    public default byte[] getByteRepresentation(Object objectRepresentation) throws SerializingException {
+        String representation = getStringRepresentation(objectRepresentation);
+        return representation == null ? null : representation.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the representation of {@code objectRepresentation} to {@code out} and flushes it. Nothing is written if
+     * {@code objectRepresentation} is null.
+     */
+    public default void writeRepresentation(Object objectRepresentation, OutputStream out)
+            throws SerializingException {
+        byte[] representation = getByteRepresentation(objectRepresentation);
+        if (representation == null) {
+            return;
+        }
+        try {
+            out.write(representation);
+            out.flush();
+        } catch (IOException e) {
+            throw new SerializingException("Could not write representation", e);
+        }
+    }
+
+    /**
+     * Writes the representation of {@code objectRepresentation} to {@code out} and flushes it. Nothing is written if
+     * {@code objectRepresentation} is null.
+     */
+    public default void writeRepresentation(Object objectRepresentation, Writer out) throws SerializingException {
+        String representation = getStringRepresentation(objectRepresentation);
+        if (representation == null) {
+            return;
+        }
+        try {
+            out.write(representation);
+            out.flush();
+        } catch (IOException e) {
+            throw new SerializingException("Could not write representation", e);
+        }
+    }
+
 }
@@ -0,0 +1,50 @@
+package com.clearcapital.oss.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An OutputStream which puts into a {@link ByteBuffer}, heap or direct, and notes rather than grows when the buffer
+ * is full. One instance per thread is reused, pointed at a new buffer each time.
+ */
+final class ByteBufferOutputStream extends OutputStream {
+
+    private ByteBuffer buffer;
+    private boolean overflowed;
+
+    void reset(final ByteBuffer target) {
+        buffer = target;
+        overflowed = false;
+    }
+
+    boolean inUse() {
+        return buffer != null;
+    }
+
+    boolean overflowed() {
+        return overflowed;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            throw overflow();
+        }
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+        if (buffer.remaining() < length) {
+            throw overflow();
+        }
+        buffer.put(bytes, offset, length);
+    }
+
+    private IOException overflow() {
+        overflowed = true;
+        return new IOException("ByteBuffer is full");
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.clearcapital.oss.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+/**
+ * A {@link JsonSerializer} which reads and writes CBOR (RFC 7049), with exactly the same mapper configuration: the same
+ * inclusion rules, null-key and Long handling, modules and registered subtypes. Anything it writes reads back as the
+ * same object graph as from JsonSerializer.
+ * <p/>
+ * The byte and stream forms carry the binary format as is. The String, Reader and Writer forms carry it as Base64.
+ */
+public class CborSerializer extends JsonSerializer {
+
+    public CborSerializer() {
+        super(new ObjectMapper(new CBORFactory()));
+    }
+
+    public static CborSerializer getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private static final class InstanceHolder {
+
+        static final CborSerializer INSTANCE = new CborSerializer();
+    }
+
+}
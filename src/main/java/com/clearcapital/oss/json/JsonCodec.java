@@ -0,0 +1,142 @@
+package com.clearcapital.oss.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+
+import com.clearcapital.oss.java.exceptions.DeserializingException;
+import com.clearcapital.oss.java.exceptions.SerializingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Reads and writes values of one type with the settings of the {@link JsonSerializer} it came from, holding on to the
+ * resolved Jackson reader and the writer for the last class written, so that a call does no lookups at all in the
+ * common case of a single concrete class.
+ * <p/>
+ * Obtain one from {@link JsonSerializer#getCodec(Class)} and keep it. Instances are thread-safe. As with
+ * {@link JsonSerializer}, null values and representations give null, and streams are left open.
+ */
+public final class JsonCodec<T> {
+
+    private final JsonSerializer serializer;
+    private final ObjectReader reader;
+    private volatile ResolvedWriter lastWriter;
+
+    JsonCodec(final JsonSerializer serializer, final ObjectReader reader) {
+        this.serializer = serializer;
+        this.reader = reader;
+    }
+
+    public T getObject(final String representation) throws DeserializingException {
+        if (representation == null) {
+            return null;
+        }
+        try {
+            return serializer.readText(reader, representation);
+        } catch (IOException e) {
+            throw new DeserializingException("Could not deserialize json", e);
+        }
+    }
+
+    public T getObject(final byte[] representation) throws DeserializingException {
+        if (representation == null) {
+            return null;
+        }
+        try {
+            return reader.readValue(representation);
+        } catch (IOException e) {
+            throw new DeserializingException("Could not deserialize json", e);
+        }
+    }
+
+    public T getObject(final InputStream representation) throws DeserializingException {
+        if (representation == null) {
+            return null;
+        }
+        try {
+            return reader.readValue(representation);
+        } catch (IOException e) {
+            throw new DeserializingException("Could not deserialize json", e);
+        }
+    }
+
+    public T getObject(final Reader representation) throws DeserializingException {
+        if (representation == null) {
+            return null;
+        }
+        try {
+            return serializer.readText(reader, representation);
+        } catch (IOException e) {
+            throw new DeserializingException("Could not deserialize json", e);
+        }
+    }
+
+    public String getStringRepresentation(final T value) throws SerializingException {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return serializer.writeText(getWriter(value), value);
+        } catch (IOException e) {
+            throw new SerializingException("Could not convert object to Json String", e);
+        }
+    }
+
+    public byte[] getByteRepresentation(final T value) throws SerializingException {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return getWriter(value).writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializingException("Could not convert object to Json bytes", e);
+        }
+    }
+
+    public void writeRepresentation(final T value, final OutputStream out) throws SerializingException {
+        if (value == null) {
+            return;
+        }
+        try {
+            getWriter(value).writeValue(out, value);
+        } catch (IOException e) {
+            throw new SerializingException("Could not write object as Json", e);
+        }
+    }
+
+    public void writeRepresentation(final T value, final Writer out) throws SerializingException {
+        if (value == null) {
+            return;
+        }
+        try {
+            serializer.writeText(getWriter(value), value, out);
+        } catch (IOException e) {
+            throw new SerializingException("Could not write object as Json", e);
+        }
+    }
+
+    // values are written by their runtime class, as JsonSerializer does, so subclasses keep their own properties.
+    private ObjectWriter getWriter(final T value) {
+        ResolvedWriter resolved = lastWriter;
+        if (resolved == null || resolved.type != value.getClass()) {
+            resolved = new ResolvedWriter(value.getClass(), serializer.getWriter(value.getClass()));
+            lastWriter = resolved;
+        }
+        return resolved.writer;
+    }
+
+    private static final class ResolvedWriter {
+
+        final Class<?> type;
+        final ObjectWriter writer;
+
+        ResolvedWriter(final Class<?> type, final ObjectWriter writer) {
+            this.type = type;
+            this.writer = writer;
+        }
+    }
+
+}
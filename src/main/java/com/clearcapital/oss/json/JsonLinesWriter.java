@@ -0,0 +1,62 @@
+package com.clearcapital.oss.json;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+import com.clearcapital.oss.java.exceptions.SerializingException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Writes newline-delimited JSON: one value per line, each followed by {@code '\n'}, through a single Jackson
+ * generator, so that a file of any size can be produced one record at a time.
+ * <p/>
+ * Obtain one from {@link JsonSerializer#getLinesWriter(java.io.OutputStream)}. The underlying stream belongs to the
+ * caller: {@link #close()} flushes it but leaves it open. Instances are not thread-safe.
+ */
+public final class JsonLinesWriter implements Closeable, Flushable {
+
+    private final ObjectWriter writer;
+    private final JsonGenerator generator;
+
+    JsonLinesWriter(final ObjectWriter writer, final JsonGenerator generator) {
+        this.writer = writer;
+        this.generator = generator;
+        // each value is followed by a newline instead of the default space between root values.
+        generator.setRootValueSeparator(null);
+    }
+
+    /**
+     * Writes {@code value} as one line. A null value is written as {@code null}, so that lines still line up with
+     * records.
+     */
+    public void write(final Object value) throws SerializingException {
+        try {
+            writer.writeValue(generator, value);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new SerializingException("Could not write object as Json", e);
+        }
+    }
+
+    /**
+     * Writes each of {@code values} as one line.
+     */
+    public void writeAll(final Iterable<?> values) throws SerializingException {
+        for (Object value : values) {
+            write(value);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+
+}
@@ -0,0 +1,384 @@
+package com.clearcapital.oss.json;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.clearcapital.oss.java.FieldAccessor;
+import com.clearcapital.oss.java.ReflectionHelpers;
+import com.clearcapital.oss.java.exceptions.ReflectionPathException;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.annotation.JsonIdentityReference;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.introspect.AnnotatedField;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.UnwrappingBeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.std.BeanSerializerBase;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * Computes and applies JSON merge patches (RFC 7396) between objects, field by field, for
+ * {@link JsonSerializer#getMergePatch(Object, Object)} and {@link JsonSerializer#applyMergePatch(Object, String)}.
+ * <p/>
+ * Objects which the mapper writes as beans are compared through the cached {@link FieldAccessor}s of the fields it
+ * writes, recursively, so an unchanged field costs an accessor call and an equals(), and only changed values are ever
+ * serialized. A property which the mapper writes other than as its field's value on its own, such as one with a
+ * {@code @JsonFormat} or {@code @JsonSerialize}, or one read through a getter, is serialized through its own property
+ * writer on both sides when it may have changed, and the results are compared instead, so the patch has the shape
+ * the mapper writes. Lists are compared element by element the same way, and a changed List is replaced whole, as merge
+ * patches require of arrays. String-keyed Maps are compared entry by entry and patched by key. Anything else is
+ * compared with equals() and then by its serialized tree. A null value, which is never written, is a removed member.
+ */
+final class JsonMergePatch {
+
+    private final JsonSerializer serializer;
+
+    // class -> the properties the mapper writes, by name.
+    private final ConcurrentMap<Class<?>, Map<String, Property>> properties = new ConcurrentHashMap<>();
+    // class -> whether the mapper writes it as a bean; looking a serializer up makes a provider every time.
+    private final ConcurrentMap<Class<?>, Boolean> beans = new ConcurrentHashMap<>();
+
+    JsonMergePatch(final JsonSerializer serializer) {
+        this.serializer = serializer;
+    }
+
+    /**
+     * Returns the patch which turns {@code original} into {@code modified}, or null if there are no changes.
+     */
+    JsonNode diff(final Object original, final Object modified) throws ReflectionPathException {
+        if (original == modified || Objects.deepEquals(original, modified)) {
+            return null;
+        }
+        if (modified == null) {
+            return JsonNodeFactory.instance.nullNode();
+        }
+        if (original == null) {
+            return toTree(modified);
+        }
+        if (original.getClass() == modified.getClass() && isBean(original.getClass())) {
+            ObjectNode patch = JsonNodeFactory.instance.objectNode();
+            for (Property property : getProperties(original.getClass()).values()) {
+                if (property.plain) {
+                    JsonNode change = diff(property.field.get(original), property.field.get(modified));
+                    if (change != null) {
+                        patch.set(property.name, change);
+                    }
+                } else if (property.field == null || !Objects.deepEquals(property.field.get(original),
+                        property.field.get(modified))) {
+                    JsonNode change = diffTrees(writeProperty(property, original), writeProperty(property,
+                            modified));
+                    if (change != null) {
+                        // an unwrapped property writes members of its own, rather than one under its name.
+                        patch.setAll((ObjectNode) change);
+                    }
+                }
+            }
+            return patch.size() == 0 ? null : patch;
+        }
+        if (original instanceof List && modified instanceof List) {
+            return diffLists((List<?>) original, (List<?>) modified);
+        }
+        if (original instanceof Map && modified instanceof Map) {
+            Map<?, ?> originalMap = (Map<?, ?>) original;
+            Map<?, ?> modifiedMap = (Map<?, ?>) modified;
+            if (hasStringKeys(originalMap) && hasStringKeys(modifiedMap)) {
+                return diffMaps(originalMap, modifiedMap);
+            }
+            // other keys are written as text by the mapper, so only serializing a changed Map tells what to patch.
+            if (hasSameEntries(originalMap, modifiedMap)) {
+                return null;
+            }
+        }
+        return diffTrees(toTree(original), toTree(modified));
+    }
+
+    // a patch can't change part of an array, so a changed List is replaced whole; but its elements may lack equals().
+    private JsonNode diffLists(final List<?> original, final List<?> modified) throws ReflectionPathException {
+        if (original.size() == modified.size()) {
+            Iterator<?> modifiedElements = modified.iterator();
+            boolean changed = false;
+            for (Object element : original) {
+                if (diff(element, modifiedElements.next()) != null) {
+                    changed = true;
+                    break;
+                }
+            }
+            if (!changed) {
+                return null;
+            }
+        }
+        return toTree(modified);
+    }
+
+    private JsonNode diffMaps(final Map<?, ?> original, final Map<?, ?> modified) throws ReflectionPathException {
+        ObjectNode patch = JsonNodeFactory.instance.objectNode();
+        for (Object key : original.keySet()) {
+            if (!modified.containsKey(key)) {
+                patch.putNull((String) key);
+            }
+        }
+        for (Map.Entry<?, ?> entry : modified.entrySet()) {
+            JsonNode change = diff(original.get(entry.getKey()), entry.getValue());
+            if (change != null) {
+                patch.set((String) entry.getKey(), change);
+            }
+        }
+        return patch.size() == 0 ? null : patch;
+    }
+
+    private boolean hasSameEntries(final Map<?, ?> original, final Map<?, ?> modified) throws ReflectionPathException {
+        if (original.size() != modified.size()) {
+            return false;
+        }
+        for (Map.Entry<?, ?> entry : original.entrySet()) {
+            if (!modified.containsKey(entry.getKey()) || diff(entry.getValue(), modified.get(entry.getKey())) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasStringKeys(final Map<?, ?> map) {
+        for (Object key : map.keySet()) {
+            if (!(key instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Applies {@code patch} to {@code target} in place. Members which aren't fields the mapper reads are ignored.
+     */
+    void apply(final Object target, final ObjectNode patch) throws ReflectionPathException, IOException {
+        Map<String, Property> targetProperties = getProperties(target.getClass());
+        JavaType targetType = getMapper().getTypeFactory().constructType(target.getClass());
+        for (Iterator<Map.Entry<String, JsonNode>> members = patch.fields(); members.hasNext();) {
+            Map.Entry<String, JsonNode> member = members.next();
+            Property property = targetProperties.get(member.getKey());
+            if (property == null || property.field == null) {
+                continue;
+            }
+            FieldAccessor field = property.field;
+            JsonNode change = member.getValue();
+            Object current = field.get(target);
+            JavaType fieldType = getMapper().getTypeFactory().constructType(field.getGenericType(), targetType
+                    .getBindings());
+            if (change.isObject() && current != null && isBean(current.getClass()) && !hasTypeId(fieldType, change)) {
+                apply(current, (ObjectNode) change);
+                continue;
+            }
+            Object updated = null;
+            if (!change.isNull()) {
+                JsonNode value = change.isObject() && current != null ? merge(toTree(current), change) : change;
+                updated = serializer.getReader(fieldType).readValue(value);
+            }
+            field.set(target, updated);
+        }
+    }
+
+    // a patch which carries a type id replaces the value with one of another class, rather than changing its fields.
+    private boolean hasTypeId(final JavaType type, final JsonNode change) throws JsonMappingException {
+        TypeDeserializer typeDeserializer = getMapper().getDeserializationContext().getFactory().findTypeDeserializer(
+                getMapper().getDeserializationConfig(), type);
+        return typeDeserializer != null && typeDeserializer.getPropertyName() != null && change.has(typeDeserializer
+                .getPropertyName());
+    }
+
+    private static JsonNode diffTrees(final JsonNode original, final JsonNode modified) {
+        if (original.equals(modified)) {
+            return null;
+        }
+        if (!original.isObject() || !modified.isObject()) {
+            return modified;
+        }
+        ObjectNode patch = JsonNodeFactory.instance.objectNode();
+        for (Iterator<String> names = original.fieldNames(); names.hasNext();) {
+            String name = names.next();
+            if (!modified.has(name)) {
+                patch.putNull(name);
+            }
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> members = modified.fields(); members.hasNext();) {
+            Map.Entry<String, JsonNode> member = members.next();
+            JsonNode originalValue = original.get(member.getKey());
+            JsonNode change = originalValue == null ? member.getValue() : diffTrees(originalValue, member
+                    .getValue());
+            if (change != null) {
+                patch.set(member.getKey(), change);
+            }
+        }
+        return patch;
+    }
+
+    // the merge of RFC 7396, section 2, without modifying target.
+    private static JsonNode merge(final JsonNode target, final JsonNode patch) {
+        if (!patch.isObject()) {
+            return patch;
+        }
+        ObjectNode result = target != null && target.isObject() ? ((ObjectNode) target).deepCopy()
+                : JsonNodeFactory.instance.objectNode();
+        for (Iterator<Map.Entry<String, JsonNode>> members = patch.fields(); members.hasNext();) {
+            Map.Entry<String, JsonNode> member = members.next();
+            if (member.getValue().isNull()) {
+                result.remove(member.getKey());
+            } else {
+                result.set(member.getKey(), merge(result.get(member.getKey()), member.getValue()));
+            }
+        }
+        return result;
+    }
+
+    // the members property writes for bean, as an object; a value which isn't written leaves it empty.
+    private JsonNode writeProperty(final Property property, final Object bean) {
+        TokenBuffer buffer = new TokenBuffer(getMapper(), false);
+        try {
+            buffer.writeStartObject();
+            property.writer.serializeAsField(bean, buffer, getMapper().getSerializerProviderInstance());
+            buffer.writeEndObject();
+            return getMapper().readTree(buffer.asParser());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            // as ObjectMapper.valueToTree() reports it.
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    private JsonNode toTree(final Object value) {
+        JsonNode tree = getMapper().valueToTree(value);
+        return tree == null ? JsonNodeFactory.instance.nullNode() : tree;
+    }
+
+    // whether the mapper writes values of type as beans, i.e., as the properties of their fields and getters.
+    private boolean isBean(final Class<?> type) {
+        Boolean bean = beans.get(type);
+        if (bean == null) {
+            try {
+                bean = getMapper().getSerializerProviderInstance().findValueSerializer(type)
+                        instanceof BeanSerializerBase;
+            } catch (JsonMappingException e) {
+                bean = false;
+            }
+            beans.putIfAbsent(type, bean);
+        }
+        return bean;
+    }
+
+    private Map<String, Property> getProperties(final Class<?> type) {
+        Map<String, Property> typeProperties = properties.get(type);
+        if (typeProperties == null) {
+            typeProperties = new LinkedHashMap<>();
+            BeanDescription description = getMapper().getSerializationConfig().introspect(getMapper()
+                    .constructType(type));
+            Map<String, String> internalNames = new HashMap<>();
+            for (BeanPropertyDefinition property : description.findProperties()) {
+                internalNames.put(property.getName(), property.getInternalName());
+            }
+            for (BeanPropertyWriter writer : getWriters(type)) {
+                FieldAccessor field = null;
+                String internalName = internalNames.get(writer.getName());
+                if (internalName != null) {
+                    try {
+                        field = ReflectionHelpers.getFieldAccessor(type, internalName);
+                    } catch (ReflectionPathException e) {
+                        // a getter with no field behind it is compared by what it writes.
+                    }
+                }
+                typeProperties.put(writer.getName(), new Property(writer.getName(), field, writer));
+            }
+            Map<String, Property> existing = properties.putIfAbsent(type, typeProperties);
+            if (existing != null) {
+                typeProperties = existing;
+            }
+        }
+        return typeProperties;
+    }
+
+    private List<BeanPropertyWriter> getWriters(final Class<?> type) {
+        List<BeanPropertyWriter> writers = new ArrayList<>();
+        try {
+            Object beanSerializer = getMapper().getSerializerProviderInstance().findValueSerializer(type);
+            if (beanSerializer instanceof BeanSerializerBase) {
+                for (Iterator<PropertyWriter> properties = ((BeanSerializerBase) beanSerializer).properties();
+                        properties.hasNext();) {
+                    PropertyWriter writer = properties.next();
+                    if (writer instanceof BeanPropertyWriter) {
+                        writers.add((BeanPropertyWriter) writer);
+                    }
+                }
+            }
+        } catch (JsonMappingException e) {
+            // not a bean after all; isBean() says the same.
+        }
+        return writers;
+    }
+
+    private ObjectMapper getMapper() {
+        return serializer.getObjectMapper();
+    }
+
+    /**
+     * A property the mapper writes for a bean class: the field behind it, if there is one, and its writer.
+     */
+    private static final class Property {
+
+        // annotations with which a property is written otherwise than its value would be on its own.
+        private static final List<Class<? extends Annotation>> WRITTEN_OTHERWISE = Arrays.asList(JsonFormat.class,
+                JsonSerialize.class, JsonRawValue.class, JsonUnwrapped.class, JsonTypeInfo.class,
+                JsonIdentityInfo.class, JsonIdentityReference.class);
+
+        final String name;
+        final FieldAccessor field;
+        final BeanPropertyWriter writer;
+        // whether the mapper writes the field's value as it would write it on its own, so that it can be compared,
+        // and patched, field by field.
+        final boolean plain;
+
+        Property(final String name, final FieldAccessor field, final BeanPropertyWriter writer) {
+            this.name = name;
+            this.field = field;
+            this.writer = writer;
+            this.plain = field != null && isPlain(writer);
+        }
+
+        private static boolean isPlain(final BeanPropertyWriter writer) {
+            AnnotatedMember member = writer.getMember();
+            if (!(member instanceof AnnotatedField) || writer.hasSerializer()
+                    || writer instanceof UnwrappingBeanPropertyWriter) {
+                return false;
+            }
+            for (Class<? extends Annotation> annotation : WRITTEN_OTHERWISE) {
+                if (member.hasAnnotation(annotation)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,259 @@
+package com.clearcapital.oss.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.clearcapital.oss.java.CompiledReflectionPath;
+import com.clearcapital.oss.java.PathStep;
+import com.clearcapital.oss.java.ReflectionPathSet;
+import com.clearcapital.oss.java.exceptions.DeserializingException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Pulls the values at a fixed set of reflection paths straight out of a serialized document, without binding the
+ * document to objects. The paths are matched against the token stream as it is read, subtrees which no path goes into
+ * are skipped, and reading stops as soon as every path has been found, so only the selected values are ever built.
+ * <p/>
+ * Path entries select from the document as they select from the objects it was written from: a field name or a
+ * {@code [key]} selects the object member of that name, and {@code {n}} selects the n-th element of an array. A path
+ * which selects something the document doesn't have, or which runs into a null or a value of another shape, yields
+ * null. Since null fields aren't written, a missing member reads the same as a null one.
+ * <p/>
+ * Values are read as {@link JsonSerializer#getObject(String, Class)} reads them: untyped values become Maps, Lists,
+ * Strings, numbers and Booleans. A document is only read as far as the last value selected, so malformed input past
+ * that point isn't noticed. Obtain one from {@link JsonSerializer#getPathExtractor(ReflectionPathSet)} and keep it;
+ * instances are thread-safe.
+ */
+public final class JsonPathExtractor {
+
+    private final JsonSerializer serializer;
+    private final ReflectionPathSet paths;
+    // one reader per path, for the type its value is read as.
+    private final ObjectReader[] readers;
+    private final Node root;
+
+    JsonPathExtractor(final JsonSerializer serializer, final ReflectionPathSet paths, final ObjectReader[] readers) {
+        this.serializer = serializer;
+        this.paths = paths;
+        this.readers = readers;
+        this.root = Node.build(paths.getPaths());
+    }
+
+    public ReflectionPathSet getPaths() {
+        return paths;
+    }
+
+    /**
+     * @return the values selected from {@code representation}, one per path in the order of {@link #getPaths()}, or
+     *         null if {@code representation} is null.
+     */
+    public Object[] getValues(final String representation) throws DeserializingException {
+        if (representation == null) {
+            return null;
+        }
+        try (JsonParser parser = serializer.createParser(representation)) {
+            return extract(parser);
+        } catch (IOException e) {
+            throw new DeserializingException("Could not deserialize json", e);
+        }
+    }
+
+    /**
+     * @see #getValues(String)
+     */
+    public Object[] getValues(final byte[] representation) throws DeserializingException {
+        if (representation == null) {
+            return null;
+        }
+        try (JsonParser parser = serializer.getObjectMapper().getFactory().createParser(representation)) {
+            return extract(parser);
+        } catch (IOException e) {
+            throw new DeserializingException("Could not deserialize json", e);
+        }
+    }
+
+    /**
+     * Reads from {@code representation} until every path has been found, leaving it open.
+     *
+     * @see #getValues(String)
+     */
+    public Object[] getValues(final InputStream representation) throws DeserializingException {
+        if (representation == null) {
+            return null;
+        }
+        try (JsonParser parser = serializer.createParser(representation)) {
+            return extract(parser);
+        } catch (IOException e) {
+            throw new DeserializingException("Could not deserialize json", e);
+        }
+    }
+
+    /**
+     * Reads from {@code representation} until every path has been found, leaving it open.
+     *
+     * @see #getValues(String)
+     */
+    public Object[] getValues(final Reader representation) throws DeserializingException {
+        if (representation == null) {
+            return null;
+        }
+        try (JsonParser parser = serializer.createParser(representation)) {
+            return extract(parser);
+        } catch (IOException e) {
+            throw new DeserializingException("Could not deserialize json", e);
+        }
+    }
+
+    private Object[] extract(final JsonParser parser) throws IOException {
+        Object[] row = new Object[readers.length];
+        if (parser.nextToken() != null) {
+            new Extraction(parser, row).walk(root);
+        }
+        return row;
+    }
+
+    /**
+     * The state of one pass over one document.
+     */
+    private final class Extraction {
+
+        private final JsonParser parser;
+        private final Object[] row;
+        // the number of leaves not reached yet; once it's zero, the rest of the document is left unread.
+        private int remaining;
+
+        Extraction(final JsonParser parser, final Object[] row) {
+            this.parser = parser;
+            this.row = row;
+            this.remaining = root.leafCount;
+        }
+
+        // the parser is on the first token of the value node selects, and is left on its last token.
+        void walk(final Node node) throws IOException {
+            if (node.slots.length > 0) {
+                readLeaf(node);
+                return;
+            }
+            JsonToken token = parser.getCurrentToken();
+            if (token == JsonToken.START_OBJECT && !node.members.isEmpty()) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    Node member = node.members.get(parser.getCurrentName());
+                    parser.nextToken();
+                    if (member == null) {
+                        parser.skipChildren();
+                    } else {
+                        walk(member);
+                        if (remaining <= 0) {
+                            return;
+                        }
+                    }
+                }
+            } else if (token == JsonToken.START_ARRAY && !node.elements.isEmpty()) {
+                int index = 0;
+                for (token = parser.nextToken(); token != JsonToken.END_ARRAY && token != null; token = parser
+                        .nextToken()) {
+                    Node element = node.elements.get(index++);
+                    if (element == null) {
+                        parser.skipChildren();
+                    } else {
+                        walk(element);
+                        if (remaining <= 0) {
+                            return;
+                        }
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        private void readLeaf(final Node node) throws IOException {
+            if (node.slots.length == 1 && node.leafCount == 1) {
+                row[node.slots[0]] = readers[node.slots[0]].readValue(parser);
+            } else {
+                // other paths select the same value, or go on into it, so read it once as a tree and share that.
+                fill(node, serializer.getReader(JsonNode.class).<JsonNode> readValue(parser));
+            }
+            remaining -= node.leafCount;
+        }
+
+        private void fill(final Node node, final JsonNode value) throws IOException {
+            for (int slot : node.slots) {
+                row[slot] = value == null ? null : readers[slot].readValue(value);
+            }
+            for (Map.Entry<String, Node> member : node.members.entrySet()) {
+                fill(member.getValue(), value == null ? null : value.get(member.getKey()));
+            }
+            for (Map.Entry<Integer, Node> element : node.elements.entrySet()) {
+                fill(element.getValue(), value == null ? null : value.get(element.getKey()));
+            }
+        }
+    }
+
+    /**
+     * One node of the prefix tree of the paths: the paths which end here, and the members and elements which paths go
+     * on into.
+     */
+    private static final class Node {
+
+        final Map<String, Node> members = new HashMap<>();
+        final Map<Integer, Node> elements = new HashMap<>();
+        int[] slots = new int[0];
+        // the number of nodes at or below this one at which a path ends.
+        int leafCount;
+
+        static Node build(final List<CompiledReflectionPath> paths) {
+            Node root = new Node();
+            for (int i = 0; i < paths.size(); i++) {
+                Node node = root;
+                for (PathStep step : paths.get(i).getSteps()) {
+                    node = node.child(step);
+                }
+                node.slots = Arrays.copyOf(node.slots, node.slots.length + 1);
+                node.slots[node.slots.length - 1] = i;
+            }
+            root.countLeaves();
+            return root;
+        }
+
+        private Node child(final PathStep step) {
+            switch (step.getKind()) {
+            case COLLECTION_INDEX:
+                return getOrAdd(elements, ((PathStep.CollectionIndexStep) step).getIndex());
+            case MAP_KEY:
+                return getOrAdd(members, ((PathStep.MapKeyStep) step).getKey());
+            default:
+                return getOrAdd(members, ((PathStep.FieldStep) step).getFieldName());
+            }
+        }
+
+        private static <K> Node getOrAdd(final Map<K, Node> children, final K key) {
+            Node child = children.get(key);
+            if (child == null) {
+                child = new Node();
+                children.put(key, child);
+            }
+            return child;
+        }
+
+        private int countLeaves() {
+            leafCount = slots.length > 0 ? 1 : 0;
+            for (Node member : members.values()) {
+                leafCount += member.countLeaves();
+            }
+            for (Node element : elements.values()) {
+                leafCount += element.countLeaves();
+            }
+            return leafCount;
+        }
+    }
+
+}
@@ -1,42 +1,149 @@
 package com.clearcapital.oss.json;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import com.clearcapital.oss.java.CompiledReflectionPath;
 import com.clearcapital.oss.java.ReflectionHelpers;
+import com.clearcapital.oss.java.ReflectionPathSet;
 import com.clearcapital.oss.java.Serializer;
 import com.clearcapital.oss.java.exceptions.DeserializingException;
+import com.clearcapital.oss.java.exceptions.ReflectionPathException;
 import com.clearcapital.oss.java.exceptions.SerializingException;
+import com.clearcapital.oss.json.serializers.LongArrayAsStringsSerializer;
+import com.clearcapital.oss.json.serializers.LongArrayFromStringsDeserializer;
+import com.clearcapital.oss.json.serializers.LongAsStringDeserializer;
+import com.clearcapital.oss.json.serializers.LongAsStringSerializer;
 import com.clearcapital.oss.json.serializers.NullKeyAsEmptySerializer;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
-import com.fasterxml.jackson.annotation.JsonTypeName;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.ser.DefaultSerializerProvider;
-import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import com.fasterxml.jackson.datatype.guava.GuavaModule;
+import com.google.common.base.Objects;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.CharStreams;
 
 public class JsonSerializer implements Serializer {
 
-    private final static JsonSerializer INSTANCE = new JsonSerializer();
+    // counts prewarm() calls which haven't finished, so that isWarm() can wait for all of them.
+    private static final AtomicInteger PENDING_WARMUPS = new AtomicInteger();
+    private static volatile boolean instanceBuilt;
+
+    static final int INITIAL_POOLED_BUFFER_SIZE = 8 * 1024;
+    static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+    static final int MAX_CACHED_READERS = 1024;
+    // each projection holds a copy of the mapper, with deserializers of its own.
+    static final int MAX_CACHED_PROJECTIONS = 64;
+
+    private static final ThreadLocal<ByteBuffer> POOLED_BUFFERS = new ThreadLocal<ByteBuffer>() {
+
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocateDirect(INITIAL_POOLED_BUFFER_SIZE);
+        }
+    };
+
+    private static final ThreadLocal<ByteBufferOutputStream> BUFFER_STREAMS =
+            new ThreadLocal<ByteBufferOutputStream>() {
+
+                @Override
+                protected ByteBufferOutputStream initialValue() {
+                    return new ByteBufferOutputStream();
+                }
+            };
 
     final ObjectMapper objectMapper;
 
+    // binary formats, such as Smile and CBOR, are carried in Strings, Readers and Writers as Base64.
+    private final boolean textual;
+
+    // Jackson readers and writers are immutable and have their root (de)serializer resolved up front. They capture
+    // the mapper's configuration when they're built, so the mapper should be configured before first use. Writers
+    // hang off their class, so they don't keep its class loader alive; readers are also looked up by generic types,
+    // so there are only so many of them.
+    private final ConcurrentMap<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final ClassValue<ObjectWriter> writers = new ClassValue<ObjectWriter>() {
+
+        @Override
+        protected ObjectWriter computeValue(final Class<?> type) {
+            // the root type is the runtime class, so the output is the same as the mapper's own.
+            return getObjectMapper().writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).forType(type);
+        }
+    };
+    private final ConcurrentMap<ProjectionKey, ObjectReader> projections = new ConcurrentHashMap<>();
+    private final JsonMergePatch mergePatch = new JsonMergePatch(this);
+
     public JsonSerializer() {
-        objectMapper = configureObjectMapper(new ObjectMapper());
+        this(new ObjectMapper());
+    }
+
+    /**
+     * Configures {@code mapper} as every JsonSerializer is configured. The mapper's factory decides the wire format.
+     */
+    protected JsonSerializer(final ObjectMapper mapper) {
+        this(mapper, new Builder());
+    }
+
+    /**
+     * Configures {@code mapper} with {@code options}. The mapper's factory decides the wire format.
+     */
+    protected JsonSerializer(final ObjectMapper mapper, final Builder options) {
+        objectMapper = configureObjectMapper(mapper, options);
+        textual = !mapper.getFactory().canHandleBinaryNatively();
+    }
+
+    /**
+     * Returns a builder for a JsonSerializer with other than the default options.
+     */
+    public static Builder builder() {
+        return new Builder();
     }
 
     static final public ObjectMapper configureObjectMapper(final ObjectMapper mapper) {
+        return configureObjectMapper(mapper, new Builder());
+    }
+
+    static final public ObjectMapper configureObjectMapper(final ObjectMapper mapper, final Builder options) {
         mapper.setSerializationInclusion(Include.NON_NULL);
         mapper.configure(JsonParser.Feature.ALLOW_COMMENTS, true);
         mapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
-        mapper.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+        // Jackson writes a SortedMap, ImmutableSortedMap included, as is; other Maps are copied into a TreeMap.
+        mapper.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, options.sortMapKeys);
         mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
         SerializerProvider sp = mapper.getSerializerProvider();
@@ -47,9 +154,16 @@ public class JsonSerializer implements Serializer {
         }
         sp.setNullKeySerializer(new NullKeyAsEmptySerializer());
 
-        SimpleModule globalSerializers = new SimpleModule();
-        globalSerializers.addSerializer(Long.class, ToStringSerializer.instance);
-        mapper.registerModule(globalSerializers);
+        if (options.longsAsStrings) {
+            SimpleModule globalSerializers = new SimpleModule();
+            globalSerializers.addSerializer(Long.class, LongAsStringSerializer.INSTANCE);
+            globalSerializers.addSerializer(Long.TYPE, LongAsStringSerializer.INSTANCE);
+            globalSerializers.addSerializer(long[].class, LongArrayAsStringsSerializer.INSTANCE);
+            globalSerializers.addDeserializer(Long.class, LongAsStringDeserializer.WRAPPER_INSTANCE);
+            globalSerializers.addDeserializer(Long.TYPE, LongAsStringDeserializer.PRIMITIVE_INSTANCE);
+            globalSerializers.addDeserializer(long[].class, LongArrayFromStringsDeserializer.INSTANCE);
+            mapper.registerModule(globalSerializers);
+        }
         
         mapper.registerModule(new GuavaModule());
 
@@ -58,10 +172,77 @@ public class JsonSerializer implements Serializer {
         return mapper;
     }
 
+    /**
+     * Returns the shared instance, building it on first use. Building it configures the mapper and finds every
+     * {@code @JsonTypeName} type, which may mean scanning the classpath; call {@link #prewarm(Class...)} at startup to
+     * do that off the request path.
+     */
     public static JsonSerializer getInstance() {
-        return INSTANCE;
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Starts building the shared instance, and the readers and writers for {@code hotTypes}, on a background daemon
+     * thread, and returns at once. The returned future completes with the shared instance. Calling
+     * {@link #getInstance()} before it completes is safe: it blocks until the instance is built rather than building
+     * another.
+     */
+    public static Future<JsonSerializer> prewarm(final Class<?>... hotTypes) {
+        return prewarm(Arrays.asList(hotTypes));
+    }
+
+    /**
+     * @see #prewarm(Class...)
+     */
+    public static Future<JsonSerializer> prewarm(final Collection<? extends Class<?>> hotTypes) {
+        PENDING_WARMUPS.incrementAndGet();
+        FutureTask<JsonSerializer> warmup = new FutureTask<JsonSerializer>(() -> {
+            try {
+                return getInstance().warm(hotTypes);
+            } finally {
+                PENDING_WARMUPS.decrementAndGet();
+            }
+        });
+        Thread thread = new Thread(warmup, "json-serializer-prewarm");
+        thread.setDaemon(true);
+        thread.start();
+        return warmup;
+    }
+
+    /**
+     * Returns true once the shared instance has been built and every {@link #prewarm(Class...)} started so far has
+     * finished.
+     */
+    public static boolean isWarm() {
+        // reading the flag rather than InstanceHolder.INSTANCE, which would build the instance.
+        return instanceBuilt && PENDING_WARMUPS.get() == 0;
+    }
+
+    /**
+     * Builds and caches the readers and writers for {@code hotTypes} now, with their root (de)serializers resolved,
+     * so that the first value of each type read or written costs no more than any other. Returns this serializer.
+     */
+    public JsonSerializer warm(final Class<?>... hotTypes) {
+        return warm(Arrays.asList(hotTypes));
+    }
+
+    /**
+     * @see #warm(Class...)
+     */
+    public JsonSerializer warm(final Collection<? extends Class<?>> hotTypes) {
+        for (Class<?> type : hotTypes) {
+            getReader(type);
+            getWriter(type);
+        }
+        return this;
     }
 
+    /**
+     * Returns the mapper this serializer reads and writes with. The readers and writers it caches per type, and the
+     * {@link JsonCodec}s, projections and extractors handed out, capture the mapper's configuration when they are
+     * built, so changes made through the mapper afterwards, such as {@code configure} or {@code registerModule}, don't
+     * reach types already read or written. Configure the mapper before first use, or use another serializer.
+     */
     public ObjectMapper getObjectMapper() {
         return objectMapper;
     }
@@ -72,7 +253,7 @@ public class JsonSerializer implements Serializer {
             return null;
         }
         try {
-            return targetType.cast(getObjectMapper().readValue(jsonRepresentation, targetType));
+            return targetType.cast(readText(getReader(targetType), jsonRepresentation));
         } catch (IOException e) {
             throw new DeserializingException("Could not deserialize json", e);
         }
@@ -84,7 +265,7 @@ public class JsonSerializer implements Serializer {
             return null;
         }
         try {
-            return getObjectMapper().readValue(jsonRepresentation, type);
+            return readText(getReader(type.getType()), jsonRepresentation);
         } catch (IOException e) {
             throw new DeserializingException("Could not deserialize string.", e);
         }
@@ -96,18 +277,643 @@ public class JsonSerializer implements Serializer {
             if (objectRepresentation == null) {
                 return null;
             }
-            return getObjectMapper().writeValueAsString(objectRepresentation);
-        } catch (JsonProcessingException e) {
+            return writeText(getWriter(objectRepresentation.getClass()), objectRepresentation);
+        } catch (IOException e) {
             throw new SerializingException("Could not convert object to Json String", e);
         }
     }
 
+    @Override
+    public <T> T getObjectFromBytes(final byte[] representation, final Class<T> targetType)
+            throws DeserializingException {
+        if (representation == null || targetType == null) {
+            return null;
+        }
+        try {
+            return targetType.cast(getReader(targetType).readValue(representation));
+        } catch (IOException e) {
+            throw new DeserializingException("Could not deserialize json", e);
+        }
+    }
+
+    @Override
+    public <T> T getObjectFromBytes(final byte[] representation, final TypeReference<T> type)
+            throws DeserializingException {
+        if (representation == null || type == null) {
+            return null;
+        }
+        try {
+            return getReader(type.getType()).readValue(representation);
+        } catch (IOException e) {
+            throw new DeserializingException("Could not deserialize json", e);
+        }
+    }
+
+    /**
+     * Reads one value from {@code representation}, which is expected to be JSON in UTF-8, UTF-16 or UTF-32. The
+     * stream is read through Jackson's parser as it arrives, and is left open.
+     */
+    @Override
+    public <T> T getObjectFromStream(final InputStream representation, final Class<T> targetType)
+            throws DeserializingException {
+        if (representation == null || targetType == null) {
+            return null;
+        }
+        try {
+            return targetType.cast(getReader(targetType).readValue(representation));
+        } catch (IOException e) {
+            throw new DeserializingException("Could not deserialize json", e);
+        }
+    }
+
+    /**
+     * @see #getObjectFromStream(InputStream, Class)
+     */
+    @Override
+    public <T> T getObjectFromStream(final InputStream representation, final TypeReference<T> type)
+            throws DeserializingException {
+        if (representation == null || type == null) {
+            return null;
+        }
+        try {
+            return getReader(type.getType()).readValue(representation);
+        } catch (IOException e) {
+            throw new DeserializingException("Could not deserialize json", e);
+        }
+    }
+
+    /**
+     * Reads one value from {@code representation} through Jackson's parser, leaving the reader open.
+     */
+    @Override
+    public <T> T getObjectFromReader(final Reader representation, final Class<T> targetType)
+            throws DeserializingException {
+        if (representation == null || targetType == null) {
+            return null;
+        }
+        try {
+            return targetType.cast(readText(getReader(targetType), representation));
+        } catch (IOException e) {
+            throw new DeserializingException("Could not deserialize json", e);
+        }
+    }
+
+    /**
+     * @see #getObjectFromReader(Reader, Class)
+     */
+    @Override
+    public <T> T getObjectFromReader(final Reader representation, final TypeReference<T> type)
+            throws DeserializingException {
+        if (representation == null || type == null) {
+            return null;
+        }
+        try {
+            return readText(getReader(type.getType()), representation);
+        } catch (IOException e) {
+            throw new DeserializingException("Could not deserialize json", e);
+        }
+    }
+
+    /**
+     * @return the UTF-8 JSON representation of {@code objectRepresentation}, or null if it is null.
+     */
+    @Override
+    public byte[] getByteRepresentation(final Object objectRepresentation) throws SerializingException {
+        try {
+            if (objectRepresentation == null) {
+                return null;
+            }
+            return getWriter(objectRepresentation.getClass()).writeValueAsBytes(objectRepresentation);
+        } catch (JsonProcessingException e) {
+            throw new SerializingException("Could not convert object to Json bytes", e);
+        }
+    }
+
+    /**
+     * Writes the UTF-8 JSON representation of {@code objectRepresentation} straight to {@code out} through Jackson's
+     * generator, then flushes it and leaves it open. Nothing is written if {@code objectRepresentation} is null.
+     */
+    @Override
+    public void writeRepresentation(final Object objectRepresentation, final OutputStream out)
+            throws SerializingException {
+        if (objectRepresentation == null) {
+            return;
+        }
+        try {
+            getWriter(objectRepresentation.getClass()).writeValue(out, objectRepresentation);
+        } catch (IOException e) {
+            throw new SerializingException("Could not write object as Json", e);
+        }
+    }
+
+    /**
+     * @see #writeRepresentation(Object, OutputStream)
+     */
+    @Override
+    public void writeRepresentation(final Object objectRepresentation, final Writer out) throws SerializingException {
+        if (objectRepresentation == null) {
+            return;
+        }
+        try {
+            writeText(getWriter(objectRepresentation.getClass()), objectRepresentation, out);
+        } catch (IOException e) {
+            throw new SerializingException("Could not write object as Json", e);
+        }
+    }
+
+    /**
+     * Writes the representation of {@code objectRepresentation} into {@code target}, heap or direct, starting at its
+     * position, which is left just past what was written. Jackson's generator buffers are recycled per thread, so
+     * little is allocated besides the generator itself.
+     *
+     * @return the number of bytes written, which is 0 if {@code objectRepresentation} is null.
+     * @throws SerializingException
+     *             if the representation doesn't fit in the space remaining in {@code target}, in which case its
+     *             position is left unchanged, or if it can't be serialized
+     */
+    public int writeRepresentation(final Object objectRepresentation, final ByteBuffer target)
+            throws SerializingException {
+        if (objectRepresentation == null) {
+            return 0;
+        }
+        int written = writeInto(objectRepresentation, target);
+        if (written < 0) {
+            throw new SerializingException("Representation does not fit in the " + target.remaining()
+                    + " bytes remaining", null);
+        }
+        return written;
+    }
+
+    /**
+     * Writes the representation of {@code objectRepresentation} into a direct buffer owned by the calling thread, and
+     * returns that buffer, flipped so that it holds exactly the representation. The buffer is reused, so it is only
+     * valid until the next call on the same thread; hand it to a channel or copy it before then.
+     * <p/>
+     * A representation which doesn't fit is serialized once more, to a heap array. If it fits in
+     * {@value #MAX_POOLED_BUFFER_SIZE} bytes, the thread's buffer grows to hold it and it is copied in; otherwise the
+     * array is returned wrapped in a heap buffer of its own, rather than tying up that much direct memory.
+     *
+     * @return the buffer, or null if {@code objectRepresentation} is null.
+     */
+    public ByteBuffer getPooledRepresentation(final Object objectRepresentation) throws SerializingException {
+        if (objectRepresentation == null) {
+            return null;
+        }
+        ByteBuffer buffer = POOLED_BUFFERS.get();
+        buffer.clear();
+        if (writeInto(objectRepresentation, buffer) < 0) {
+            byte[] representation = getByteRepresentation(objectRepresentation);
+            if (representation.length > MAX_POOLED_BUFFER_SIZE) {
+                return ByteBuffer.wrap(representation);
+            }
+            int capacity = buffer.capacity();
+            while (capacity < representation.length) {
+                capacity *= 2;
+            }
+            buffer = ByteBuffer.allocateDirect(Math.min(capacity, MAX_POOLED_BUFFER_SIZE));
+            POOLED_BUFFERS.set(buffer);
+            buffer.put(representation);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    // returns -1, leaving target's position unchanged, if the representation doesn't fit.
+    private int writeInto(final Object objectRepresentation, final ByteBuffer target) throws SerializingException {
+        ByteBufferOutputStream out = BUFFER_STREAMS.get();
+        if (out.inUse()) {
+            // a custom serializer is writing to a buffer from inside a write; don't disturb the outer one.
+            out = new ByteBufferOutputStream();
+        }
+        int start = target.position();
+        out.reset(target);
+        try {
+            getWriter(objectRepresentation.getClass()).writeValue(out, objectRepresentation);
+            return target.position() - start;
+        } catch (IOException e) {
+            target.position(start);
+            if (out.overflowed()) {
+                return -1;
+            }
+            throw new SerializingException("Could not write object as Json", e);
+        } finally {
+            out.reset(null);
+        }
+    }
+
+    /**
+     * Returns an iterator which reads values of {@code targetType} from {@code representation} one at a time, so
+     * that memory use doesn't grow with the size of the input. The input may be a JSON array, whose elements are
+     * returned in turn, or a sequence of root-level values such as newline-delimited JSON.
+     * <p/>
+     * {@link MappingIterator#hasNext()} and {@link MappingIterator#next()} throw unchecked exceptions if the input is
+     * malformed part way through; use {@link MappingIterator#hasNextValue()} and {@link MappingIterator#nextValue()}
+     * to get {@link IOException}s instead. Closing the iterator releases the parser but leaves the stream open.
+     *
+     * @throws DeserializingException
+     *             if the start of the input can't be read
+     */
+    public <T> MappingIterator<T> getObjects(final InputStream representation, final Class<T> targetType)
+            throws DeserializingException {
+        if (representation == null || targetType == null) {
+            return null;
+        }
+        try {
+            return getReader(targetType).readValues(representation);
+        } catch (IOException e) {
+            throw new DeserializingException("Could not deserialize json", e);
+        }
+    }
+
+    /**
+     * @see #getObjects(InputStream, Class)
+     */
+    public <T> MappingIterator<T> getObjects(final Reader representation, final Class<T> targetType)
+            throws DeserializingException {
+        if (representation == null || targetType == null) {
+            return null;
+        }
+        try {
+            if (!textual) {
+                return getReader(targetType).readValues(fromText(CharStreams.toString(representation)));
+            }
+            return getReader(targetType).readValues(representation);
+        } catch (IOException e) {
+            throw new DeserializingException("Could not deserialize json", e);
+        }
+    }
+
+    /**
+     * Returns the values of {@link #getObjects(InputStream, Class)} as a sequential {@link Stream}. Closing the
+     * stream closes the iterator; an {@link IOException} while doing so is rethrown as an
+     * {@link UncheckedIOException}.
+     */
+    public <T> Stream<T> getObjectStream(final InputStream representation, final Class<T> targetType)
+            throws DeserializingException {
+        return toStream(getObjects(representation, targetType));
+    }
+
+    /**
+     * @see #getObjectStream(InputStream, Class)
+     */
+    public <T> Stream<T> getObjectStream(final Reader representation, final Class<T> targetType)
+            throws DeserializingException {
+        return toStream(getObjects(representation, targetType));
+    }
+
+    /**
+     * Returns a writer for newline-delimited JSON, which writes UTF-8 to {@code out} one value at a time.
+     *
+     * @throws UnsupportedOperationException
+     *             if this serializer writes a binary format, which has no lines
+     */
+    public JsonLinesWriter getLinesWriter(final OutputStream out) throws SerializingException {
+        checkTextual();
+        try {
+            return linesWriter(getObjectMapper().getFactory().createGenerator(out, JsonEncoding.UTF8));
+        } catch (IOException e) {
+            throw new SerializingException("Could not create Json generator", e);
+        }
+    }
+
+    /**
+     * @see #getLinesWriter(OutputStream)
+     */
+    public JsonLinesWriter getLinesWriter(final Writer out) throws SerializingException {
+        checkTextual();
+        try {
+            return linesWriter(getObjectMapper().getFactory().createGenerator(out));
+        } catch (IOException e) {
+            throw new SerializingException("Could not create Json generator", e);
+        }
+    }
+
+    private JsonLinesWriter linesWriter(final JsonGenerator generator) {
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return new JsonLinesWriter(getObjectMapper().writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE),
+                generator);
+    }
+
+    private void checkTextual() {
+        if (!textual) {
+            throw new UnsupportedOperationException(getObjectMapper().getFactory().getFormatName()
+                    + " is a binary format, so it can't be written as lines");
+        }
+    }
+
+    private static <T> Stream<T> toStream(final MappingIterator<T> values) {
+        if (values == null) {
+            return null;
+        }
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(values, Spliterator.ORDERED), false)
+                .onClose(() -> {
+                    try {
+                        values.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * Returns a reusable handle for reading and writing {@code type}, which skips even the cache lookups done by
+     * {@link #getObject(String, Class)} and {@link #getStringRepresentation(Object)}. Hold on to it.
+     */
+    public <T> JsonCodec<T> getCodec(final Class<T> type) {
+        return new JsonCodec<>(this, getReader(type));
+    }
+
+    /**
+     * @see #getCodec(Class)
+     */
+    public <T> JsonCodec<T> getCodec(final TypeReference<T> type) {
+        return new JsonCodec<>(this, getReader(type.getType()));
+    }
+
+    /**
+     * Returns an extractor which reads the values at {@code paths} straight out of representations, without binding
+     * whole documents. Every value is read untyped, as {@code getObject(representation, Object.class)} would read it.
+     */
+    public JsonPathExtractor getPathExtractor(final ReflectionPathSet paths) {
+        ObjectReader[] pathReaders = new ObjectReader[paths.size()];
+        Arrays.fill(pathReaders, getReader(Object.class));
+        return new JsonPathExtractor(this, paths, pathReaders);
+    }
+
+    /**
+     * Returns the value at {@code reflectionPath} in {@code jsonRepresentation}, read as {@code targetType}, without
+     * binding the rest of the document. The path is compiled on every call; hold on to a {@link JsonPathExtractor} to
+     * extract the same paths repeatedly.
+     *
+     * @return the value, or null if the representation is null or the document has no value at the path
+     * @throws ReflectionPathException
+     *             if the path is null or contains a null entry
+     * @see JsonPathExtractor
+     */
+    public <T> T getFieldValue(final String jsonRepresentation, final Collection<String> reflectionPath,
+            final Class<T> targetType) throws ReflectionPathException, DeserializingException {
+        ReflectionPathSet paths = ReflectionPathSet.compile(Collections.singletonList(reflectionPath));
+        Object[] values = new JsonPathExtractor(this, paths, new ObjectReader[] { getReader(targetType) })
+                .getValues(jsonRepresentation);
+        return values == null ? null : targetType.cast(values[0]);
+    }
+
+    /**
+     * Returns a codec which reads only what {@code paths} select from {@code type}. Every other property of the
+     * classes the paths pass through is skipped by the parser without being bound, and left null, or zero for
+     * primitives, in the result; values the paths select are read in full. Properties set through a constructor are
+     * always read. Writing is unaffected.
+     * <p/>
+     * Paths are resolved against declared field types, and field names are those of the Java fields, as elsewhere.
+     * Since Jackson builds one deserializer per class, a class the paths pass through in several places keeps every
+     * field selected in any of them. The codec is built on first use, and cached for up to
+     * {@value #MAX_CACHED_PROJECTIONS} distinct projections; hold on to it.
+     *
+     * @throws ReflectionPathException
+     *             if a path names a field its declared type doesn't have, or indexes into something which isn't a
+     *             container
+     */
+    public <T> JsonCodec<T> getProjection(final Class<T> type, final ReflectionPathSet paths)
+            throws ReflectionPathException {
+        ProjectionKey key = new ProjectionKey(type, paths.getPaths());
+        ObjectReader reader = projections.get(key);
+        if (reader == null) {
+            JavaType javaType = getObjectMapper().getTypeFactory().constructType(type);
+            SimpleModule projection = new SimpleModule();
+            projection.setDeserializerModifier(new ProjectionModifier(getObjectMapper().getTypeFactory(), javaType,
+                    paths));
+            // a copy, so that the stripped deserializers are cached apart from the complete ones.
+            ObjectMapper mapper = getObjectMapper().copy().registerModule(projection);
+            reader = mapper.reader().without(JsonParser.Feature.AUTO_CLOSE_SOURCE).forType(javaType);
+            if (projections.size() < MAX_CACHED_PROJECTIONS) {
+                ObjectReader existing = projections.putIfAbsent(key, reader);
+                if (existing != null) {
+                    reader = existing;
+                }
+            }
+        }
+        return new JsonCodec<>(this, reader);
+    }
+
+    /**
+     * Returns a JSON merge patch (RFC 7396) which turns {@code original} into {@code modified}: an object holding only
+     * the fields which differ, with removed fields as nulls. Fields are compared through cached field accessors, and
+     * only changed values are serialized, so the cost follows the size of the change rather than that of the objects.
+     * Nested objects of the same class give nested patches; Lists and arrays which differ are written whole.
+     *
+     * @return the patch, "{}" if nothing changed, or null if both are null
+     * @throws SerializingException
+     *             if a field can't be read or a value can't be serialized
+     */
+    public String getMergePatch(final Object original, final Object modified) throws SerializingException {
+        if (original == null && modified == null) {
+            return null;
+        }
+        try {
+            JsonNode patch = mergePatch.diff(original, modified);
+            return writeText(getWriter(JsonNode.class), patch == null ? getObjectMapper().createObjectNode() : patch);
+        } catch (ReflectionPathException | IOException | IllegalArgumentException e) {
+            throw new SerializingException("Could not compute merge patch", e);
+        }
+    }
+
+    /**
+     * Applies a merge patch produced by {@link #getMergePatch(Object, Object)} to {@code target} in place. Each field
+     * the patch names is written through its field accessor. A nested patch is applied to the existing nested object,
+     * and any other value is read as the field's declared type. Patch members which aren't fields of the target are
+     * ignored, and nothing is done if either argument is null.
+     *
+     * @throws DeserializingException
+     *             if the patch isn't a JSON object, or a field can't be read, written or deserialized; fields before
+     *             the failing one have been written by then
+     */
+    public void applyMergePatch(final Object target, final String patch) throws DeserializingException {
+        if (target == null || patch == null) {
+            return;
+        }
+        try {
+            JsonNode tree = readText(getReader(JsonNode.class), patch);
+            if (tree == null || !tree.isObject()) {
+                throw new DeserializingException("A merge patch of an object must be a JSON object", null);
+            }
+            mergePatch.apply(target, (ObjectNode) tree);
+        } catch (ReflectionPathException | IOException e) {
+            throw new DeserializingException("Could not apply merge patch", e);
+        }
+    }
+
+    /**
+     * Returns the cached reader for {@code type}, building it on first use. Up to {@value #MAX_CACHED_READERS} types
+     * are cached; readers for any more are built per call. Readers leave streams open.
+     */
+    ObjectReader getReader(final Type type) {
+        ObjectReader reader = readers.get(type);
+        if (reader == null) {
+            reader = getObjectMapper().reader().without(JsonParser.Feature.AUTO_CLOSE_SOURCE)
+                    .forType(getObjectMapper().getTypeFactory().constructType(type));
+            if (readers.size() < MAX_CACHED_READERS) {
+                ObjectReader existing = readers.putIfAbsent(type, reader);
+                if (existing != null) {
+                    reader = existing;
+                }
+            }
+        }
+        return reader;
+    }
+
+    /**
+     * Returns the cached writer for values of exactly {@code type}, building it on first use. Writers leave streams
+     * open.
+     */
+    ObjectWriter getWriter(final Class<?> type) {
+        return writers.get(type);
+    }
+
+    /**
+     * Reads a value from its String form, which is Base64 for binary formats.
+     */
+    <T> T readText(final ObjectReader reader, final String representation) throws IOException {
+        return textual ? reader.readValue(representation) : reader.readValue(fromText(representation));
+    }
+
+    <T> T readText(final ObjectReader reader, final Reader representation) throws IOException {
+        return textual ? reader.readValue(representation)
+                : reader.readValue(fromText(CharStreams.toString(representation)));
+    }
+
+    /**
+     * Writes a value in its String form, which is Base64 for binary formats.
+     */
+    String writeText(final ObjectWriter writer, final Object value) throws IOException {
+        return textual ? writer.writeValueAsString(value)
+                : BaseEncoding.base64().encode(writer.writeValueAsBytes(value));
+    }
+
+    void writeText(final ObjectWriter writer, final Object value, final Writer out) throws IOException {
+        if (textual) {
+            writer.writeValue(out, value);
+        } else {
+            out.write(BaseEncoding.base64().encode(writer.writeValueAsBytes(value)));
+            out.flush();
+        }
+    }
+
+    /**
+     * Returns a parser over a String representation, which is Base64 for binary formats.
+     */
+    JsonParser createParser(final String representation) throws IOException {
+        return textual ? getObjectMapper().getFactory().createParser(representation) : getObjectMapper().getFactory()
+                .createParser(fromText(representation));
+    }
+
+    JsonParser createParser(final Reader representation) throws IOException {
+        JsonParser parser = textual ? getObjectMapper().getFactory().createParser(representation)
+                : getObjectMapper().getFactory().createParser(fromText(CharStreams.toString(representation)));
+        return parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+    }
+
+    JsonParser createParser(final InputStream representation) throws IOException {
+        return getObjectMapper().getFactory().createParser(representation).disable(
+                JsonParser.Feature.AUTO_CLOSE_SOURCE);
+    }
+
+    private static byte[] fromText(final String representation) throws IOException {
+        try {
+            return BaseEncoding.base64().decode(representation);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Representation is not Base64", e);
+        }
+    }
+
+    /**
+     * Registers every {@code @JsonTypeName} type. The build-time indexes written by {@link JsonTypeIndexProcessor} are
+     * used where there are any; the classpath roots of {@code packageName} which have none are scanned.
+     */
     private static void registerSubTypes(ObjectMapper mapper, String packageName) {
-        Set<Class<?>> result = ReflectionHelpers.getTypesAnnotatedWith(packageName, JsonTypeName.class);
+        Set<Class<?>> result = JsonTypeIndex.findTypes(getClassLoader(), ReflectionHelpers.getClasspathRoots(
+                packageName));
 
         for (Class<?> jsonType : result) {
             mapper.registerSubtypes(jsonType);
         }
     }
 
+    /**
+     * Options for a JsonSerializer. Every option defaults to what {@link #getInstance()} does.
+     */
+    public static final class Builder {
+
+        boolean longsAsStrings = true;
+        boolean sortMapKeys = true;
+
+        private Builder() {
+        }
+
+        /**
+         * Whether {@code long}, {@link Long} and {@code long[]} values are written as JSON strings, so that
+         * Javascript clients don't lose precision above 2^53. Defaults to true. Consumers which can read 64-bit
+         * numbers may turn it off to get plain JSON numbers. Either form is read either way.
+         */
+        public Builder longsAsStrings(final boolean longsAsStrings) {
+            this.longsAsStrings = longsAsStrings;
+            return this;
+        }
+
+        /**
+         * Whether Map entries are written in key order, so that equal maps have equal representations. Defaults to
+         * true. Maps which are already a {@link java.util.SortedMap} are written as they are; any other Map is copied
+         * into a TreeMap first, which can dominate the cost of writing large maps. Callers which don't need
+         * deterministic output may turn it off to write every Map in its own iteration order.
+         */
+        public Builder sortMapKeys(final boolean sortMapKeys) {
+            this.sortMapKeys = sortMapKeys;
+            return this;
+        }
+
+        public JsonSerializer build() {
+            return new JsonSerializer(new ObjectMapper(), this);
+        }
+    }
+
+    private static final class ProjectionKey {
+
+        final Class<?> type;
+        final List<CompiledReflectionPath> paths;
+
+        ProjectionKey(final Class<?> type, final List<CompiledReflectionPath> paths) {
+            this.type = type;
+            this.paths = paths;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof ProjectionKey)) {
+                return false;
+            }
+            ProjectionKey other = (ProjectionKey) obj;
+            return type == other.type && paths.equals(other.paths);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(type, paths);
+        }
+    }
+
+    // the JVM builds INSTANCE on the first call to getInstance(), exactly once, rather than when JsonSerializer is
+    // loaded, which may be on any thread that happens to mention the class.
+    private static final class InstanceHolder {
+
+        static final JsonSerializer INSTANCE = new JsonSerializer();
+
+        static {
+            instanceBuilt = true;
+        }
+    }
+
+    private static ClassLoader getClassLoader() {
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        return contextClassLoader != null ? contextClassLoader : JsonSerializer.class.getClassLoader();
+    }
+
 }
@@ -0,0 +1,113 @@
+package com.clearcapital.oss.json;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.clearcapital.oss.java.ReflectionHelpers;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+
+/**
+ * Reads the build-time index of {@code @JsonTypeName} types written by {@link JsonTypeIndexProcessor}.
+ * <p/>
+ * Each jar (or classes directory) compiled with this library on its classpath carries its own
+ * {@value #INDEX_RESOURCE}, listing the binary names of its annotated types, and of their subtypes, one per line.
+ * Loading every copy of that resource visible to a class loader takes milliseconds, where scanning the whole classpath
+ * for the annotation can take seconds. Roots compiled without the processor have no index, and are still scanned.
+ */
+final class JsonTypeIndex {
+
+    static final String INDEX_RESOURCE = "META-INF/clearcapital/json-type-names";
+
+    private static Logger log = LoggerFactory.getLogger(JsonTypeIndex.class);
+
+    private JsonTypeIndex() {
+    }
+
+    /**
+     * Returns every {@code @JsonTypeName} type, and every subtype of one, visible to {@code classLoader}: those
+     * listed by every index it can see, and those found by scanning each of the classpath {@code roots} which has no
+     * index of its own, e.g., a directory or jar compiled without the processor. Types which don't load are skipped.
+     */
+    static Set<Class<?>> findTypes(final ClassLoader classLoader, final Collection<URL> roots) {
+        Set<Class<?>> types = new LinkedHashSet<>();
+        Set<String> indexedRoots = loadIndexes(classLoader, types);
+        Set<URL> unindexedRoots = new LinkedHashSet<>();
+        for (URL root : roots) {
+            if (!indexedRoots.contains(root.toExternalForm())) {
+                unindexedRoots.add(root);
+            }
+        }
+        if (!unindexedRoots.isEmpty()) {
+            // as the classpath scan always has, this also finds subclasses of annotated types.
+            types.addAll(ReflectionHelpers.getReflectionsOfRoots(unindexedRoots).getTypesAnnotatedWith(
+                    JsonTypeName.class));
+        }
+        return types;
+    }
+
+    // adds the types of every index visible to classLoader to types, and returns the roots the indexes are in, in
+    // the form of a classpath root's URL.
+    private static Set<String> loadIndexes(final ClassLoader classLoader, final Set<Class<?>> types) {
+        Enumeration<URL> resources;
+        try {
+            resources = classLoader.getResources(INDEX_RESOURCE);
+        } catch (IOException e) {
+            log.warn("Couldn't look for " + INDEX_RESOURCE, e);
+            return Collections.emptySet();
+        }
+        Set<String> roots = new HashSet<>();
+        while (resources.hasMoreElements()) {
+            URL resource = resources.nextElement();
+            String externalForm = resource.toExternalForm();
+            if (externalForm.endsWith(INDEX_RESOURCE)) {
+                // e.g., file:/app/classes/ or jar:file:/app/lib/types.jar!/
+                roots.add(externalForm.substring(0, externalForm.length() - INDEX_RESOURCE.length()));
+            }
+            for (String className : readNames(resource)) {
+                try {
+                    types.add(Class.forName(className, false, classLoader));
+                } catch (ClassNotFoundException | LinkageError e) {
+                    log.warn("Skipping " + className + " listed in " + resource + ": " + e);
+                }
+            }
+        }
+        return roots;
+    }
+
+    static Set<String> readNames(final URL resource) {
+        try (InputStream in = resource.openStream();
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return readNames(reader);
+        } catch (IOException e) {
+            log.warn("Couldn't read " + resource, e);
+            return new LinkedHashSet<>();
+        }
+    }
+
+    // the names in an index, skipping blank lines and # comments.
+    static Set<String> readNames(final BufferedReader reader) throws IOException {
+        Set<String> names = new LinkedHashSet<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                names.add(line);
+            }
+        }
+        return names;
+    }
+
+}
@@ -0,0 +1,138 @@
+package com.clearcapital.oss.json;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor which writes the binary name of every {@code @JsonTypeName} type being compiled, and of every
+ * type which extends or implements one, into {@value JsonTypeIndex#INDEX_RESOURCE}, so that {@link JsonSerializer} can
+ * register subtypes without scanning the classpath. The subtypes are those the classpath scan finds as well; Jackson
+ * registers unannotated ones under their default names.
+ * <p/>
+ * Incremental builds compile only some of a project's sources, so the index already in the class output is merged
+ * with the types found: names which still resolve to a type which belongs in the index are kept, and the rest, such as
+ * deleted or renamed classes, are dropped.
+ * <p/>
+ * It is registered in {@code META-INF/services}, so javac picks it up automatically for any project which has this
+ * library on its compile classpath. It looks at every type compiled, but claims no annotations, so other processors
+ * still see them.
+ */
+@SupportedAnnotationTypes("*")
+public class JsonTypeIndexProcessor extends AbstractProcessor {
+
+    private static final String JSON_TYPE_NAME = "com.fasterxml.jackson.annotation.JsonTypeName";
+
+    private final Set<String> typeNames = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            addTypes(type);
+        }
+        if (roundEnv.processingOver()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    // adds type, and the types nested in it, if they belong in the index.
+    private void addTypes(final TypeElement type) {
+        if (isIndexed(type)) {
+            typeNames.add(processingEnv.getElementUtils().getBinaryName(type).toString());
+        }
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            addTypes(nested);
+        }
+    }
+
+    // whether type, or any of its supertypes, is annotated with @JsonTypeName.
+    private boolean isIndexed(final TypeElement type) {
+        for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+            Element annotationType = annotation.getAnnotationType().asElement();
+            if (((TypeElement) annotationType).getQualifiedName().contentEquals(JSON_TYPE_NAME)) {
+                return true;
+            }
+        }
+        for (TypeMirror supertype : processingEnv.getTypeUtils().directSupertypes(type.asType())) {
+            if (supertype instanceof DeclaredType && isIndexed((TypeElement) ((DeclaredType) supertype).asElement())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeIndex() {
+        Set<String> existing = readIndex();
+        for (String typeName : existing) {
+            TypeElement type = findType(typeName);
+            if (type != null && isIndexed(type)) {
+                typeNames.add(typeName);
+            }
+        }
+        if (typeNames.isEmpty() && existing.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                    JsonTypeIndex.INDEX_RESOURCE);
+            try (Writer writer = new OutputStreamWriter(index.openOutputStream(), StandardCharsets.UTF_8)) {
+                writer.write("# @JsonTypeName types and their subtypes, written by " + getClass().getName() + "\n");
+                for (String typeName : typeNames) {
+                    writer.write(typeName);
+                    writer.write("\n");
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Couldn't write "
+                    + JsonTypeIndex.INDEX_RESOURCE + ": " + e);
+        }
+    }
+
+    // the names in the index an earlier build left in the class output, if any.
+    private Set<String> readIndex() {
+        try {
+            FileObject index = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "",
+                    JsonTypeIndex.INDEX_RESOURCE);
+            try (BufferedReader reader = new BufferedReader(index.openReader(true))) {
+                return JsonTypeIndex.readNames(reader);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // there is none yet.
+            return new TreeSet<>();
+        }
+    }
+
+    // getTypeElement() takes canonical names, which differ from binary names for nested types.
+    private TypeElement findType(final String binaryName) {
+        TypeElement type = processingEnv.getElementUtils().getTypeElement(binaryName);
+        if (type == null && binaryName.indexOf('$') >= 0) {
+            type = processingEnv.getElementUtils().getTypeElement(binaryName.replace('$', '.'));
+        }
+        return type;
+    }
+
+}
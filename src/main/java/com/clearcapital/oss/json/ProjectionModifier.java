@@ -0,0 +1,180 @@
+package com.clearcapital.oss.json;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.clearcapital.oss.java.CompiledReflectionPath;
+import com.clearcapital.oss.java.FieldAccessor;
+import com.clearcapital.oss.java.PathStep;
+import com.clearcapital.oss.java.ReflectionHelpers;
+import com.clearcapital.oss.java.ReflectionPathSet;
+import com.clearcapital.oss.java.exceptions.ReflectionPathException;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerBuilder;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.CreatorProperty;
+import com.fasterxml.jackson.databind.deser.SettableBeanProperty;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.type.TypeBindings;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+
+/**
+ * Strips the bean deserializers of a projection down to the properties its paths go through, and marks every other
+ * property as ignored, so that the parser skips its value without binding it.
+ * <p/>
+ * Jackson builds one deserializer per class, so the projection is worked out per class: each class a path passes
+ * through keeps the fields any path selects in it, and so do its subclasses. A class which a path selects whole, or
+ * which may occur anywhere inside a value selected whole, is never stripped, so selected values are always complete.
+ * Classes no path passes through are left alone.
+ */
+final class ProjectionModifier extends BeanDeserializerModifier {
+
+    // declared class -> the fields paths select in it.
+    private final Map<Class<?>, Set<String>> kept = new HashMap<>();
+    // classes which occur inside a value selected whole.
+    private final Set<Class<?>> whole = new HashSet<>();
+
+    /**
+     * Works out the projection of {@code rootType} onto {@code paths}, from the declared types of the fields the
+     * paths pass through.
+     *
+     * @throws ReflectionPathException
+     *             if a path names a field its declared type doesn't have, or indexes into something which isn't a
+     *             container
+     */
+    ProjectionModifier(final TypeFactory typeFactory, final JavaType rootType, final ReflectionPathSet paths)
+            throws ReflectionPathException {
+        for (CompiledReflectionPath path : paths.getPaths()) {
+            addPath(typeFactory, rootType, path);
+        }
+    }
+
+    @Override
+    public BeanDeserializerBuilder updateBuilder(final DeserializationConfig config, final BeanDescription beanDesc,
+            final BeanDeserializerBuilder builder) {
+        Class<?> beanClass = beanDesc.getBeanClass();
+        Set<String> fieldNames = null;
+        for (Map.Entry<Class<?>, Set<String>> entry : kept.entrySet()) {
+            if (entry.getKey().isAssignableFrom(beanClass)) {
+                if (fieldNames == null) {
+                    fieldNames = new HashSet<>();
+                }
+                fieldNames.addAll(entry.getValue());
+            }
+        }
+        if (fieldNames == null || isWhole(beanClass)) {
+            return builder;
+        }
+        for (BeanPropertyDefinition property : beanDesc.findProperties()) {
+            if (fieldNames.contains(property.getInternalName())) {
+                continue;
+            }
+            SettableBeanProperty settable = builder.findProperty(property.getFullName());
+            // creator parameters are needed to construct the bean at all.
+            if (settable instanceof CreatorProperty) {
+                continue;
+            }
+            builder.removeProperty(property.getFullName());
+            builder.addIgnorable(property.getName());
+        }
+        return builder;
+    }
+
+    private boolean isWhole(final Class<?> beanClass) {
+        for (Class<?> wholeClass : whole) {
+            if (wholeClass.isAssignableFrom(beanClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addPath(final TypeFactory typeFactory, final JavaType rootType, final CompiledReflectionPath path)
+            throws ReflectionPathException {
+        JavaType type = rootType;
+        for (PathStep step : path.getSteps()) {
+            if (!isBean(type) && !type.isContainerType()) {
+                // untyped values, trees and the like are bound as they are, whatever the rest of the path says.
+                return;
+            }
+            type = stepType(typeFactory, type, step);
+        }
+        addWhole(typeFactory, type, new HashSet<Class<?>>());
+    }
+
+    private JavaType stepType(final TypeFactory typeFactory, final JavaType type, final PathStep step)
+            throws ReflectionPathException {
+        switch (step.getKind()) {
+        case COLLECTION_INDEX:
+            if (!type.isArrayType() && !type.isCollectionLikeType()) {
+                throw new ReflectionPathException("reflectionPath entry '" + step.getPathEntry()
+                        + "' refers to a collection index but prior type " + type + " is not a Collection");
+            }
+            return type.getContentType();
+        case MAP_KEY:
+            if (!type.isMapLikeType()) {
+                throw new ReflectionPathException("reflectionPath entry '" + step.getPathEntry()
+                        + "' refers to a map key but prior type " + type + " is not a Map");
+            }
+            return type.getContentType();
+        default:
+            String fieldName = ((PathStep.FieldStep) step).getFieldName();
+            FieldAccessor accessor = ReflectionHelpers.getFieldAccessor(type.getRawClass(), fieldName);
+            if (!accessor.exists() || type.isContainerType()) {
+                throw new ReflectionPathException("field " + fieldName + " is not declared in " + type);
+            }
+            Set<String> fieldNames = kept.get(type.getRawClass());
+            if (fieldNames == null) {
+                fieldNames = new HashSet<>();
+                kept.put(type.getRawClass(), fieldNames);
+            }
+            fieldNames.add(fieldName);
+            return typeFactory.constructType(accessor.getGenericType(), getBindings(type, accessor
+                    .getDeclaringClass()));
+        }
+    }
+
+    // records every bean class which may occur in a value of type, by its declared field types.
+    private void addWhole(final TypeFactory typeFactory, final JavaType type, final Set<Class<?>> visited) {
+        if (type.isContainerType() || type.isReferenceType()) {
+            if (type.getKeyType() != null) {
+                addWhole(typeFactory, type.getKeyType(), visited);
+            }
+            addWhole(typeFactory, type.getContentType(), visited);
+            return;
+        }
+        if (!isBean(type) || !visited.add(type.getRawClass())) {
+            return;
+        }
+        whole.add(type.getRawClass());
+        for (Class<?> c = type.getRawClass(); c != null && c != Object.class; c = c.getSuperclass()) {
+            TypeBindings bindings = getBindings(type, c);
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    addWhole(typeFactory, typeFactory.constructType(field.getGenericType(), bindings), visited);
+                }
+            }
+        }
+    }
+
+    // a field's type variables are those of the class which declares it, as type binds them.
+    private static TypeBindings getBindings(final JavaType type, final Class<?> declaringClass) {
+        JavaType declaringType = type.findSuperType(declaringClass);
+        return declaringType == null ? type.getBindings() : declaringType.getBindings();
+    }
+
+    // JDK types, enums and trees have no properties to strip.
+    private static boolean isBean(final JavaType type) {
+        Class<?> rawClass = type.getRawClass();
+        return !type.isContainerType() && !type.isReferenceType() && !type.isPrimitive() && !type.isEnumType()
+                && !rawClass.getName().startsWith("java.") && !JsonNode.class.isAssignableFrom(rawClass);
+    }
+
+}
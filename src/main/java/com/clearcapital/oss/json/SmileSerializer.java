@@ -0,0 +1,28 @@
+package com.clearcapital.oss.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * A {@link JsonSerializer} which reads and writes Smile, Jackson's binary encoding of the JSON data model, with
+ * exactly the same mapper configuration: the same inclusion rules, null-key and Long handling, modules and registered
+ * subtypes. Anything it writes reads back as the same object graph as from JsonSerializer.
+ * <p/>
+ * The byte and stream forms carry the binary format as is. The String, Reader and Writer forms carry it as Base64.
+ */
+public class SmileSerializer extends JsonSerializer {
+
+    public SmileSerializer() {
+        super(new ObjectMapper(new SmileFactory()));
+    }
+
+    public static SmileSerializer getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private static final class InstanceHolder {
+
+        static final SmileSerializer INSTANCE = new SmileSerializer();
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.clearcapital.oss.json.serializers;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Writes a {@code long[]} as a JSON array of strings, as {@link LongAsStringSerializer} writes each long.
+ */
+public class LongArrayAsStringsSerializer extends StdSerializer<long[]> {
+
+    private static final long serialVersionUID = -6187092616447532170L;
+
+    public static final LongArrayAsStringsSerializer INSTANCE = new LongArrayAsStringsSerializer();
+
+    public LongArrayAsStringsSerializer() {
+        super(long[].class);
+    }
+
+    @Override
+    public boolean isEmpty(final SerializerProvider provider, final long[] value) {
+        return value.length == 0;
+    }
+
+    @Override
+    public void serialize(final long[] value, final JsonGenerator generator, final SerializerProvider provider)
+            throws IOException {
+        generator.writeStartArray(value.length);
+        for (long element : value) {
+            LongAsStringSerializer.writeLong(element, generator);
+        }
+        generator.writeEndArray();
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.clearcapital.oss.json.serializers;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.std.PrimitiveArrayDeserializers;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.util.ArrayBuilders;
+
+/**
+ * Reads a {@code long[]} written by {@link LongArrayAsStringsSerializer}, each element as
+ * {@link LongAsStringDeserializer} reads it. Anything other than a JSON array, such as a single value, is left to
+ * Jackson's own deserializer.
+ */
+public class LongArrayFromStringsDeserializer extends StdDeserializer<long[]> {
+
+    private static final long serialVersionUID = 5017612858218620512L;
+
+    public static final LongArrayFromStringsDeserializer INSTANCE = new LongArrayFromStringsDeserializer();
+
+    @SuppressWarnings("unchecked")
+    private final JsonDeserializer<long[]> standard =
+            (JsonDeserializer<long[]>) PrimitiveArrayDeserializers.forType(Long.TYPE);
+
+    public LongArrayFromStringsDeserializer() {
+        super(long[].class);
+    }
+
+    @Override
+    public long[] deserialize(final JsonParser parser, final DeserializationContext context) throws IOException {
+        if (!parser.isExpectedStartArrayToken()) {
+            return standard.deserialize(parser, context);
+        }
+        ArrayBuilders.LongBuilder builder = context.getArrayBuilders().getLongBuilder();
+        long[] chunk = builder.resetAndStart();
+        int index = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            long value = LongAsStringDeserializer.PRIMITIVE_INSTANCE.deserialize(parser, context);
+            if (index >= chunk.length) {
+                chunk = builder.appendCompletedChunk(chunk, index);
+                index = 0;
+            }
+            chunk[index++] = value;
+        }
+        return builder.completeAndClearBuffer(chunk, index);
+    }
+
+}
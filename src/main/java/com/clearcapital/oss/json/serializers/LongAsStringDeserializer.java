@@ -0,0 +1,59 @@
+package com.clearcapital.oss.json.serializers;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonTokenId;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.std.NumberDeserializers;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.util.AccessPattern;
+
+/**
+ * Reads a {@code long} or {@link Long} written by {@link LongAsStringSerializer}, parsing the digits straight out of
+ * the parser's char buffer. Numbers, nulls and strings which aren't plain digits are left to Jackson's own
+ * deserializer, so everything it accepts is still accepted.
+ */
+public class LongAsStringDeserializer extends StdScalarDeserializer<Long> {
+
+    private static final long serialVersionUID = -3462542337386370941L;
+
+    public static final LongAsStringDeserializer PRIMITIVE_INSTANCE = new LongAsStringDeserializer(Long.TYPE, 0L);
+    public static final LongAsStringDeserializer WRAPPER_INSTANCE = new LongAsStringDeserializer(Long.class, null);
+
+    private final NumberDeserializers.LongDeserializer standard;
+
+    public LongAsStringDeserializer(final Class<Long> type, final Long nullValue) {
+        super(type);
+        standard = new NumberDeserializers.LongDeserializer(type, nullValue);
+    }
+
+    @Override
+    public Long deserialize(final JsonParser parser, final DeserializationContext context) throws IOException {
+        if (parser.getCurrentTokenId() == JsonTokenId.ID_STRING) {
+            try {
+                return LongText.parse(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            } catch (NumberFormatException e) {
+                // let the standard deserializer trim, coerce or report it.
+            }
+        }
+        return standard.deserialize(parser, context);
+    }
+
+    @Override
+    public Long getNullValue(final DeserializationContext context) throws JsonMappingException {
+        return standard.getNullValue(context);
+    }
+
+    @Override
+    public Object getEmptyValue(final DeserializationContext context) throws JsonMappingException {
+        return standard.getEmptyValue(context);
+    }
+
+    @Override
+    public AccessPattern getNullAccessPattern() {
+        return standard.getNullAccessPattern();
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.clearcapital.oss.json.serializers;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+
+/**
+ * Writes a {@code long} or {@link Long} as a JSON string of its digits, so that Javascript clients don't lose
+ * precision above 2^53. The digits go straight from a per-thread char[] to the generator, without a temporary String.
+ */
+public class LongAsStringSerializer extends StdScalarSerializer<Long> {
+
+    private static final long serialVersionUID = 3126429744931536262L;
+
+    public static final LongAsStringSerializer INSTANCE = new LongAsStringSerializer();
+
+    public LongAsStringSerializer() {
+        super(Long.class);
+    }
+
+    @Override
+    public void serialize(final Long value, final JsonGenerator generator, final SerializerProvider provider)
+            throws IOException {
+        writeLong(value, generator);
+    }
+
+    static void writeLong(final long value, final JsonGenerator generator) throws IOException {
+        char[] buffer = LongText.buffer();
+        int start = LongText.format(value, buffer);
+        generator.writeString(buffer, start, LongText.MAX_LENGTH - start);
+    }
+
+}
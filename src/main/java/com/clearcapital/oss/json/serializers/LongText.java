@@ -0,0 +1,89 @@
+package com.clearcapital.oss.json.serializers;
+
+/**
+ * Formats and parses longs as decimal digits in a char[], so that Longs written and read as JSON strings don't go
+ * through a temporary String.
+ */
+final class LongText {
+
+    // "-9223372036854775808" is the longest.
+    static final int MAX_LENGTH = 20;
+
+    private static final ThreadLocal<char[]> BUFFERS = new ThreadLocal<char[]>() {
+
+        @Override
+        protected char[] initialValue() {
+            return new char[MAX_LENGTH];
+        }
+    };
+
+    private LongText() {
+    }
+
+    /**
+     * @return the calling thread's buffer for {@link #format(long, char[])}
+     */
+    static char[] buffer() {
+        return BUFFERS.get();
+    }
+
+    /**
+     * Writes the digits of {@code value} at the end of {@code buffer}, which must hold at least {@link #MAX_LENGTH}
+     * chars.
+     *
+     * @return the offset of the first char written
+     */
+    static int format(final long value, final char[] buffer) {
+        int position = MAX_LENGTH;
+        // work with the negative magnitude, which can hold Long.MIN_VALUE.
+        long remaining = value < 0 ? value : -value;
+        do {
+            buffer[--position] = (char) ('0' - (remaining % 10));
+            remaining /= 10;
+        } while (remaining != 0);
+        if (value < 0) {
+            buffer[--position] = '-';
+        }
+        return position;
+    }
+
+    /**
+     * Parses an optionally signed run of decimal digits.
+     *
+     * @throws NumberFormatException
+     *             if the text is empty, has anything else in it, or is out of range
+     */
+    static long parse(final char[] text, final int offset, final int length) {
+        if (length == 0) {
+            throw new NumberFormatException("empty");
+        }
+        int position = offset;
+        int end = offset + length;
+        boolean negative = text[position] == '-';
+        if (negative || text[position] == '+') {
+            position++;
+            if (position == end) {
+                throw new NumberFormatException("no digits");
+            }
+        }
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyLimit = limit / 10;
+        long result = 0;
+        for (; position < end; position++) {
+            int digit = text[position] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("not a digit");
+            }
+            if (result < multiplyLimit) {
+                throw new NumberFormatException("out of range");
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw new NumberFormatException("out of range");
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+}
@@ -10,18 +10,38 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.reflections.Reflections;
+import org.reflections.scanners.SubTypesScanner;
+import org.reflections.scanners.TypeAnnotationsScanner;
+import org.reflections.util.ClasspathHelper;
 
 import com.clearcapital.oss.java.exceptions.DeserializingException;
 import com.clearcapital.oss.java.exceptions.ReflectionPathException;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import test.class_heirarchy.BaseClass;
+import test.class_heirarchy.DerivedClass;
 
 public class ReflectionHelpersTest {
 
@@ -449,4 +469,596 @@ public class ReflectionHelpersTest {
     public void testGetFieldValueLongrMap_valueNotFound() throws Exception {
         ReflectionHelpers.getFieldValue(sourceObject, Arrays.asList("integerMap", "[10]"));
     }
+
+    @Test
+    public void testCompiledPathSteps() throws Exception {
+        CompiledReflectionPath path = CompiledReflectionPath.compile(Arrays.asList("mapListMap", "[key0]", "{0}",
+                "[key2]", ".", "ignored"));
+        assertEquals(4, path.getSteps().size());
+        assertEquals(PathStep.Kind.FIELD, path.getSteps().get(0).getKind());
+        assertEquals(PathStep.Kind.MAP_KEY, path.getSteps().get(1).getKind());
+        assertEquals(PathStep.Kind.COLLECTION_INDEX, path.getSteps().get(2).getKind());
+        assertEquals(0, ((PathStep.CollectionIndexStep) path.getSteps().get(2)).getIndex());
+        assertEquals("key2", ((PathStep.MapKeyStep) path.getSteps().get(3)).getKey());
+        assertEquals("value2", path.getValue(sourceObject));
+    }
+
+    @Test
+    public void testCompiledPathReused() throws Exception {
+        CompiledReflectionPath path = CompiledReflectionPath.compile(Arrays.asList("wrappedField", "field"));
+        assertEquals("wrappedValue", path.getValue(sourceObject));
+        assertEquals("wrappedValue", path.getValue(new Hierarchical()));
+        // a different receiver class for the same field name
+        assertEquals("other", path.getValue(new OtherWrapper(new StringWrapper("other"))));
+        assertEquals("wrappedValue", path.getValue(sourceObject));
+    }
+
+    @Test
+    public void testCompiledPathEmpty() throws Exception {
+        assertEquals(sourceObject, CompiledReflectionPath.compile(Collections.<String> emptyList()).getValue(
+                sourceObject));
+    }
+
+    @Test
+    public void testCachedPathFollowsCallerList() throws Exception {
+        // paths are cached by their entries, so a list changed between calls is compiled again.
+        List<String> reflectionPath = new ArrayList<>(Collections.singletonList("field"));
+        assertEquals("value", ReflectionHelpers.getFieldValue(sourceObject, reflectionPath));
+        assertEquals("value", ReflectionHelpers.getFieldValue(sourceObject, reflectionPath));
+        reflectionPath.set(0, "nullField");
+        assertNull(ReflectionHelpers.getFieldValue(sourceObject, reflectionPath));
+        assertEquals("value", ReflectionHelpers.getFieldValue(sourceObject, Collections.singleton("field")));
+    }
+
+    @Test(expected = ReflectionPathException.class)
+    public void testCompiledPathNullEntry() throws Exception {
+        CompiledReflectionPath.compile(Arrays.asList("map", null));
+    }
+
+    @Test(expected = ReflectionPathException.class)
+    public void testCompiledPathFieldNotFound() throws Exception {
+        CompiledReflectionPath path = CompiledReflectionPath.compile(Arrays.asList("wrappedField", "field"));
+        path.getValue(new StringWrapper("noSuchNestedField"));
+    }
+
+    static class OtherWrapper {
+
+        final StringWrapper wrappedField;
+
+        OtherWrapper(final StringWrapper wrappedField) {
+            this.wrappedField = wrappedField;
+        }
+    }
+
+    @Test
+    public void testFieldAccessor() throws Exception {
+        FieldAccessor accessor = ReflectionHelpers.getFieldAccessor(Hierarchical.class, "field");
+        assertTrue(accessor.exists());
+        assertEquals(String.class, accessor.getType());
+        assertEquals("value", accessor.get(sourceObject));
+        assertTrue(accessor == ReflectionHelpers.getFieldAccessor(Hierarchical.class, "field"));
+    }
+
+    @Test(expected = ReflectionPathException.class)
+    public void testFieldAccessorNotFound() throws Exception {
+        ReflectionHelpers.getFieldAccessor(Hierarchical.class, "bogusField");
+    }
+
+    @Test
+    public void testSetFieldValue() throws Exception {
+        Primitives primitives = new Primitives();
+        ReflectionHelpers.setFieldValue(primitives, "intField", 42);
+        ReflectionHelpers.setFieldValue(primitives, "name", "named");
+        // Field.set() widening rules still apply
+        ReflectionHelpers.setFieldValue(primitives, "longField", 7);
+        assertEquals(42, primitives.intField);
+        assertEquals("named", primitives.name);
+        assertEquals(7L, primitives.longField);
+        assertEquals(42, ReflectionHelpers.getFieldValue(primitives, "intField"));
+    }
+
+    @Test(expected = ReflectionPathException.class)
+    public void testSetFieldValueWrongType() throws Exception {
+        ReflectionHelpers.setFieldValue(new Primitives(), "intField", "notAnInt");
+    }
+
+    @Test(expected = ReflectionPathException.class)
+    public void testSetFieldValueNotFound() throws Exception {
+        ReflectionHelpers.setFieldValue(new Primitives(), "bogusField", "value");
+    }
+
+    @Test
+    public void testSetFinalFieldValue() throws Exception {
+        // Java 8 has no setter handles for final fields, so these go through Field.set(), as they always did.
+        OtherWrapper wrapper = new OtherWrapper(new StringWrapper("before"));
+        ReflectionHelpers.setFieldValue(wrapper, "wrappedField", new StringWrapper("after"));
+        assertEquals(new StringWrapper("after"), wrapper.wrappedField);
+
+        FinalCount count = new FinalCount(1);
+        ReflectionHelpers.setIntValue(count, Arrays.asList("count"), 2);
+        assertEquals(2, count.count);
+    }
+
+    static class FinalCount {
+
+        final int count;
+
+        FinalCount(final int count) {
+            this.count = count;
+        }
+    }
+
+    @Test
+    public void testPrimitivePathValues() throws Exception {
+        PrimitivesHolder holder = new PrimitivesHolder();
+        ReflectionHelpers.setIntValue(holder, Arrays.asList("primitives", "intField"), 42);
+        ReflectionHelpers.setLongValue(holder, Arrays.asList("primitives", "longField"), 1L << 40);
+        ReflectionHelpers.setDoubleValue(holder, Arrays.asList("primitives", "doubleField"), 0.5);
+        ReflectionHelpers.setBooleanValue(holder, Arrays.asList("primitives", "booleanField"), true);
+        ReflectionHelpers.setIntValue(holder, Arrays.asList("primitives", "boxedInt"), 7);
+
+        assertEquals(42, ReflectionHelpers.getIntValue(holder, Arrays.asList("primitives", "intField")));
+        assertEquals(1L << 40, ReflectionHelpers.getLongValue(holder, Arrays.asList("primitives", "longField")));
+        assertEquals(0.5, ReflectionHelpers.getDoubleValue(holder, Arrays.asList("primitives", "doubleField")), 0.0);
+        assertTrue(ReflectionHelpers.getBooleanValue(holder, Arrays.asList("primitives", "booleanField")));
+        assertEquals(7, ReflectionHelpers.getIntValue(holder, Arrays.asList("primitives", "boxedInt")));
+        assertEquals(3, ReflectionHelpers.getIntValue(holder, Arrays.asList("counts", "[three]")));
+    }
+
+    @Test(expected = ReflectionPathException.class)
+    public void testPrimitivePathValueTypeMismatch() throws Exception {
+        ReflectionHelpers.getIntValue(new PrimitivesHolder(), Arrays.asList("primitives", "longField"));
+    }
+
+    @Test(expected = ReflectionPathException.class)
+    public void testPrimitivePathValueNull() throws Exception {
+        ReflectionHelpers.getIntValue(new PrimitivesHolder(), Arrays.asList("primitives", "boxedInt"));
+    }
+
+    static class Primitives {
+
+        private int intField;
+        private long longField;
+        private double doubleField;
+        private boolean booleanField;
+        private Integer boxedInt;
+        private String name;
+    }
+
+    static class PrimitivesHolder {
+
+        final Primitives primitives = new Primitives();
+        final Map<String, Integer> counts = Collections.singletonMap("three", 3);
+    }
+
+    @Test
+    public void testFieldAccessorIgnoresGetters() throws Exception {
+        // however often it's read, an accessor reads the field itself, never a getter which computes something else.
+        Bean bean = new Bean();
+        FieldAccessor nameAccessor = ReflectionHelpers.getFieldAccessor(Bean.class, "name");
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("bean", nameAccessor.get(bean));
+            assertEquals(3, ReflectionHelpers.getFieldValue(bean, "count"));
+        }
+        assertEquals(0, bean.getterCalls);
+    }
+
+    static class Bean {
+
+        private final String name = "bean";
+        private final int count = 3;
+        private int getterCalls;
+
+        public String getName() {
+            getterCalls++;
+            return name.toUpperCase();
+        }
+
+        int getCount() {
+            getterCalls++;
+            return count + 1;
+        }
+    }
+
+    @Test
+    public void testGeneratedAccessors() throws Exception {
+        Generated generated = new Generated();
+        for (String fieldName : Arrays.asList("name", "count", "total", "ratio", "active", "letter", "boxed", "values",
+                "inherited", "CONSTANT")) {
+            FieldAccessor accessor = ReflectionHelpers.getFieldAccessor(Generated.class, fieldName);
+            Object expected = accessor.get(generated);
+            accessor.promote();
+            assertEquals(GeneratedAccessors.isSupported(), accessor.isGenerated());
+            assertEquals(expected, accessor.get(generated));
+        }
+        assertEquals(3, ReflectionHelpers.getFieldAccessor(Generated.class, "count").getInt(generated));
+        assertEquals(4L, ReflectionHelpers.getFieldAccessor(Generated.class, "total").getLong(generated));
+        assertEquals(0.5, ReflectionHelpers.getFieldAccessor(Generated.class, "ratio").getDouble(generated), 0);
+        assertTrue(ReflectionHelpers.getFieldAccessor(Generated.class, "active").getBoolean(generated));
+        assertEquals("generated", ReflectionHelpers.getFieldValue(generated, Arrays.asList("name")));
+
+        FieldAccessor name = ReflectionHelpers.getFieldAccessor(Generated.class, "name");
+        try {
+            name.get(new Object());
+            fail("expected ReflectionPathException");
+        } catch (ReflectionPathException e) {
+            // the wrong class.
+        }
+        try {
+            ReflectionHelpers.getFieldAccessor(Generated.class, "count").getInt(null);
+            fail("expected ReflectionPathException");
+        } catch (ReflectionPathException e) {
+            // no object.
+        }
+    }
+
+    @Test
+    public void testGeneratedAccessorThreshold() throws Exception {
+        // promotion doesn't change what's read, so turning it on can't disturb tests running alongside.
+        Threshold threshold = new Threshold();
+        FieldAccessor accessor = ReflectionHelpers.getFieldAccessor(Threshold.class, "value");
+        ReflectionHelpers.enableGeneratedAccessors(2);
+        try {
+            for (int i = 0; i < 2; i++) {
+                assertEquals(7, accessor.getInt(threshold));
+            }
+            assertFalse(accessor.isGenerated());
+            assertEquals(7, accessor.get(threshold));
+            assertEquals(GeneratedAccessors.isSupported(), accessor.isGenerated());
+        } finally {
+            ReflectionHelpers.disableGeneratedAccessors();
+        }
+        assertEquals(7, accessor.get(threshold));
+    }
+
+    static class GeneratedBase {
+
+        private final String inherited = "base";
+    }
+
+    static class Generated extends GeneratedBase {
+
+        private static final String CONSTANT = "constant";
+
+        private final String name = "generated";
+        private final int count = 3;
+        private long total = 4;
+        private double ratio = 0.5;
+        private boolean active = true;
+        private char letter = 'g';
+        private Integer boxed = 5;
+        private int[] values = { 1, 2 };
+    }
+
+    static class Threshold {
+
+        private int value = 7;
+    }
+
+    @Test
+    public void testGetFieldValueMapKeysWithoutSerializer() throws Exception {
+        // enum and boxed-number keys are converted directly, without a serializer round trip
+        assertEquals("value3", ReflectionHelpers.getFieldValue(sourceObject, Arrays.asList("enumMap", "[KEY3]"),
+                null));
+        assertEquals("Number 7", ReflectionHelpers.getFieldValue(sourceObject, Arrays.asList("integerMap", "[7]"),
+                null));
+        assertEquals("Number 8", ReflectionHelpers.getFieldValue(sourceObject, Arrays.asList("longMap", "[8]"),
+                null));
+
+        UUID uuid = UUID.randomUUID();
+        Map<UUID, String> uuidMap = Collections.singletonMap(uuid, "found");
+        assertEquals("found", ReflectionHelpers.getFieldValue(uuidMap, Collections.singletonList("[" + uuid + "]"),
+                null));
+    }
+
+    @Test
+    public void testGetFieldValueMapKeyFallsBackToSerializer() throws Exception {
+        Serializer serializer = mock(Serializer.class);
+        when(serializer.getObject(eq("\"key-zero\""), eq(KeyEnum.class))).thenReturn(KeyEnum.KEY0);
+        CompiledReflectionPath path = CompiledReflectionPath.compile(Arrays.asList("enumMap", "[key-zero]"));
+        assertEquals("value0", path.getValue(sourceObject, serializer));
+        // remembered, so the serializer isn't needed again
+        assertEquals("value0", path.getValue(sourceObject, null));
+    }
+
+    @Test
+    public void testGetFieldValueIndexedContainers() throws Exception {
+        Containers containers = new Containers();
+        assertEquals("b", ReflectionHelpers.getFieldValue(containers, Arrays.asList("strings", "{1}")));
+        assertEquals(30, ReflectionHelpers.getFieldValue(containers, Arrays.asList("ints", "{2}")));
+        assertEquals(30, ReflectionHelpers.getIntValue(containers, Arrays.asList("ints", "{2}")));
+        assertEquals("first", ReflectionHelpers.getFieldValue(containers, Arrays.asList("deque", "{0}")));
+        assertEquals("middle", ReflectionHelpers.getFieldValue(containers, Arrays.asList("deque", "{1}")));
+        assertEquals("last", ReflectionHelpers.getFieldValue(containers, Arrays.asList("deque", "{2}")));
+        assertEquals("z", ReflectionHelpers.getFieldValue(containers, Arrays.asList("set", "{2}")));
+        assertEquals("y", ReflectionHelpers.getFieldValue(containers, Arrays.asList("linkedList", "{1}")));
+    }
+
+    @Test(expected = ReflectionPathException.class)
+    public void testGetFieldValueArrayIndexOutOfBounds() throws Exception {
+        ReflectionHelpers.getIntValue(new Containers(), Arrays.asList("ints", "{3}"));
+    }
+
+    @Test(expected = ReflectionPathException.class)
+    public void testGetFieldValueIndexIntoNonCollection() throws Exception {
+        ReflectionHelpers.getFieldValue(sourceObject, Arrays.asList("field", "{0}"));
+    }
+
+    static class Containers {
+
+        final String[] strings = { "a", "b" };
+        final int[] ints = { 10, 20, 30 };
+        final Deque<String> deque = new ArrayDeque<>(Arrays.asList("first", "middle", "last"));
+        final Set<String> set = new LinkedHashSet<>(Arrays.asList("x", "y", "z"));
+        final List<String> linkedList = new LinkedList<>(Arrays.asList("x", "y", "z"));
+    }
+
+    @Test
+    public void testReflectionPathSet() throws Exception {
+        ReflectionPathSet paths = ReflectionPathSet.compile(Arrays.asList(Arrays.asList("wrappedField", "field"),
+                Arrays.asList("mapListMap", "[key0]", "{0}", "[key2]"), Arrays.asList("wrappedField"),
+                Arrays.asList("mapListMap", "[key0]", "{0}", "[key3]"), Collections.singletonList("."),
+                Arrays.asList("nullField", "field")));
+        assertEquals(6, paths.size());
+
+        Object[] row = paths.getValues(sourceObject);
+        assertEquals("wrappedValue", row[0]);
+        assertEquals("value2", row[1]);
+        assertEquals(sourceObject.wrappedField, row[2]);
+        assertEquals("value3", row[3]);
+        assertEquals(sourceObject, row[4]);
+        assertNull(row[5]);
+
+        final List<Object> extracted = new ArrayList<>();
+        ReflectionPathSet.compile(Collections.singletonList(Arrays.asList("wrappedField", "field"))).getValues(
+                Arrays.asList(sourceObject, new OtherWrapper(new StringWrapper("other"))),
+                new ReflectionPathSet.RowHandler() {
+
+                    @Override
+                    public void handleRow(final Object source, final Object[] values) {
+                        extracted.add(values[0]);
+                    }
+                });
+        assertEquals(Arrays.<Object> asList("wrappedValue", "other"), extracted);
+    }
+
+    @Test(expected = ReflectionPathException.class)
+    public void testReflectionPathSetNotFound() throws Exception {
+        ReflectionPathSet.compile(Collections.singletonList(Arrays.asList("map", "[bogusKey]"))).getValues(
+                sourceObject);
+    }
+
+    @Test
+    public void testExtractAll() throws Exception {
+        List<StringWrapper> sources = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            sources.add(new StringWrapper("value" + i));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Object[] values = ReflectionHelpers.extractAll(sources, Collections.singletonList("field"), pool);
+            assertEquals(sources.size(), values.length);
+            for (int i = 0; i < values.length; i++) {
+                assertEquals("value" + i, values[i]);
+            }
+            assertEquals("value9999", ReflectionHelpers.extractAll(new LinkedList<>(sources), Collections
+                    .singletonList("field"))[9999]);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testExtractAllFailsAtLowestIndex() throws Exception {
+        List<Object> sources = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            sources.add(new StringWrapper("value" + i));
+        }
+        // two failures with different messages, so the test can tell which one was reported.
+        sources.set(1234, new OtherWrapper(null));
+        sources.set(8765, JsonNodeFactory.instance.arrayNode());
+        String lowest = getFailure(sources.get(1234));
+        assertFalse(lowest.equals(getFailure(sources.get(8765))));
+        try {
+            ReflectionHelpers.extractAll(sources, Collections.singletonList("field"));
+            fail("expected a ReflectionPathException");
+        } catch (ReflectionPathException e) {
+            assertEquals(lowest, e.getMessage());
+        }
+    }
+
+    private static String getFailure(final Object source) {
+        try {
+            ReflectionHelpers.getFieldValue(source, Collections.singletonList("field"));
+        } catch (ReflectionPathException e) {
+            return e.getMessage();
+        }
+        throw new AssertionError("expected a ReflectionPathException");
+    }
+
+    @Test
+    public void testSetFieldValuePath() throws Exception {
+        Writable target = new Writable();
+        ReflectionHelpers.setFieldValue(target, Arrays.asList("wrapper", "field"), "written");
+        ReflectionHelpers.setFieldValue(target, Arrays.asList("attributes", "[color]"), "blue");
+        ReflectionHelpers.setFieldValue(target, Arrays.asList("lines", "{1}"), "line one");
+        ReflectionHelpers.setFieldValue(target, Arrays.asList("counts", "{2}"), 5);
+        ReflectionHelpers.setIntValue(target, Arrays.asList("counts", "{0}"), 7);
+        ReflectionHelpers.setFieldValue(target, Arrays.asList("enumMap", "[KEY1]"), "one");
+
+        assertEquals("written", target.wrapper.field);
+        assertEquals("blue", target.attributes.get("color"));
+        assertEquals(Arrays.asList("zero", "line one"), target.lines);
+        assertEquals(5, target.counts[2]);
+        assertEquals(7, target.counts[0]);
+        assertEquals("one", target.enumMap.get(KeyEnum.KEY1));
+    }
+
+    @Test
+    public void testSetFieldValueEmptyMaps() throws Exception {
+        // an empty map has no keys to go by, so the key class comes from the declared type of the field holding it.
+        EmptyMaps target = new EmptyMaps();
+        ReflectionHelpers.setFieldValue(target, Arrays.asList("numbered", "[7]"), "seven");
+        ReflectionHelpers.setIntValue(target, Arrays.asList("counts", "[KEY2]"), 2);
+        ReflectionHelpers.setFieldValue(target, Arrays.asList("byKey", "[8]"), "eight");
+        ReflectionPathSet.compile(Collections.singletonList(Arrays.asList("named", "[name]"))).setValues(target,
+                new Object[] { "named" });
+        assertEquals(Collections.singletonMap(7, "seven"), target.numbered);
+        assertEquals(Collections.singletonMap(KeyEnum.KEY2, 2), target.counts);
+        assertEquals(Collections.singletonMap(8L, "eight"), target.byKey);
+        assertEquals(Collections.singletonMap("name", "named"), target.named);
+
+        // with no field to go by, keys are Strings.
+        Map<Object, Object> map = new HashMap<>();
+        ReflectionHelpers.setFieldValue(map, Collections.singletonList("[7]"), "seven");
+        assertEquals(Collections.singletonMap("7", "seven"), map);
+    }
+
+    static class Keyed<K> {
+
+        final Map<K, String> byKey = new HashMap<>();
+    }
+
+    static class EmptyMaps extends Keyed<Long> {
+
+        final Map<Integer, String> numbered = new HashMap<>();
+        final Map<KeyEnum, Integer> counts = new EnumMap<>(KeyEnum.class);
+        final Map<String, String> named = new HashMap<>();
+    }
+
+    @Test(expected = ReflectionPathException.class)
+    public void testSetFieldValuePathThroughNull() throws Exception {
+        ReflectionHelpers.setFieldValue(new Writable(), Arrays.asList("nullWrapper", "field"), "written");
+    }
+
+    @Test(expected = ReflectionPathException.class)
+    public void testSetFieldValuePathUnmodifiable() throws Exception {
+        ReflectionHelpers.setIntValue(new PrimitivesHolder(), Arrays.asList("counts", "[three]"), 4);
+    }
+
+    @Test
+    public void testReflectionPathSetSetValues() throws Exception {
+        ReflectionPathSet paths = ReflectionPathSet.compile(Arrays.asList(Arrays.asList("wrapper", "field"),
+                Arrays.asList("attributes", "[color]"), Arrays.asList("attributes", "[size]"), Arrays.asList(
+                        "nullWrapper"), Arrays.asList("nullWrapper", "field")));
+        Writable target = new Writable();
+        paths.setValues(target, new Object[] { "written", "red", "large", new StringWrapper("old"), "new" });
+        assertEquals("written", target.wrapper.field);
+        assertEquals("red", target.attributes.get("color"));
+        assertEquals("large", target.attributes.get("size"));
+        assertEquals(new StringWrapper("new"), target.nullWrapper);
+    }
+
+    @Test
+    public void testJsonNodePaths() throws Exception {
+        JsonNode tree = new ObjectMapper().readTree("{\"name\":\"a\",\"count\":3,\"ratio\":0.5,\"ok\":true,"
+                + "\"tags\":[\"x\",{\"deep\":\"y\"}],\"nothing\":null,\"attributes\":{\"color\":\"red\"}}");
+        assertEquals("a", ((JsonNode) ReflectionHelpers.getFieldValue(tree, Arrays.asList("name"))).textValue());
+        assertEquals(new TextNode("y"), ReflectionHelpers.getFieldValue(tree, Arrays.asList("tags", "{1}", "deep")));
+        assertEquals(new TextNode("red"), ReflectionHelpers.getFieldValue(tree, Arrays.asList("attributes",
+                "[color]")));
+        assertTrue(tree.get("tags") == ReflectionHelpers.getFieldValue(tree, Arrays.asList("tags")));
+        assertNull(ReflectionHelpers.getFieldValue(tree, Arrays.asList("nothing", "deeper")));
+        assertNull(ReflectionHelpers.getFieldValue(tree, Arrays.asList("missing")));
+        assertEquals(3, ReflectionHelpers.getIntValue(tree, Arrays.asList("count")));
+        assertEquals(3L, ReflectionHelpers.getLongValue(tree, Arrays.asList("count")));
+        assertEquals(0.5, ReflectionHelpers.getDoubleValue(tree, Arrays.asList("ratio")), 0);
+        assertTrue(ReflectionHelpers.getBooleanValue(tree, Arrays.asList("ok")));
+
+        // a tree inside an object graph is walked without being converted.
+        Map<String, Object> mixed = Collections.<String, Object> singletonMap("payload", tree);
+        assertEquals(new TextNode("x"), ReflectionHelpers.getFieldValue(mixed, Arrays.asList("[payload]", "tags",
+                "{0}")));
+
+        ReflectionHelpers.setFieldValue(tree, Arrays.asList("tags", "{0}"), "z");
+        ReflectionHelpers.setFieldValue(tree, Arrays.asList("attributes", "[size]"), 4);
+        ReflectionHelpers.setIntValue(tree, Arrays.asList("count"), 5);
+        ReflectionHelpers.setFieldValue(tree, Arrays.asList("name"), null);
+        assertEquals("z", tree.get("tags").get(0).textValue());
+        assertEquals(4, tree.get("attributes").get("size").intValue());
+        assertEquals(5, tree.get("count").intValue());
+        assertTrue(tree.get("name").isNull());
+    }
+
+    @Test(expected = ReflectionPathException.class)
+    public void testJsonNodeMissingMapKey() throws Exception {
+        ReflectionHelpers.getFieldValue(new ObjectMapper().readTree("{\"a\":{}}"), Arrays.asList("a", "[b]"));
+    }
+
+    @Test(expected = ReflectionPathException.class)
+    public void testJsonNodeIndexOutOfBounds() throws Exception {
+        ReflectionHelpers.getFieldValue(new ObjectMapper().readTree("[1]"), Arrays.asList("{1}"));
+    }
+
+    static class Writable {
+
+        final StringWrapper wrapper = new StringWrapper("original");
+        StringWrapper nullWrapper;
+        final Map<String, String> attributes = new HashMap<>(Collections.singletonMap("color", "green"));
+        final List<String> lines = new ArrayList<>(Arrays.asList("zero", "one"));
+        final int[] counts = new int[3];
+        final Map<KeyEnum, String> enumMap = new EnumMap<>(Collections.singletonMap(KeyEnum.KEY0, "zero"));
+    }
+
+    @Test
+    public void testGetReflectionsCached() throws Exception {
+        Reflections first = ReflectionHelpers.getReflections("test.class_heirarchy");
+        Reflections second = ReflectionHelpers.getReflections("test.class_heirarchy");
+        assertTrue(first != second);
+        assertTrue(first.getTypesAnnotatedWith(JsonTypeName.class).contains(DerivedClass.class));
+        assertEquals(first.getTypesAnnotatedWith(JsonTypeName.class),
+                second.getTypesAnnotatedWith(JsonTypeName.class));
+
+        // callers may merge into what they're given without affecting the cache.
+        first.merge(ReflectionHelpers.getReflections("com.clearcapital.oss.json"));
+        assertEquals(second.getStore().get("TypeAnnotationsScanner").size(),
+                ReflectionHelpers.getReflections("test.class_heirarchy").getStore().get("TypeAnnotationsScanner")
+                        .size());
+
+        assertEquals(second.getTypesAnnotatedWith(JsonTypeName.class),
+                ReflectionHelpers.getReflections(new Package[] { BaseClass.class.getPackage() })
+                        .getTypesAnnotatedWith(JsonTypeName.class));
+        assertEquals(second.getTypesAnnotatedWith(JsonTypeName.class),
+                ReflectionHelpers.getTypesAnnotatedWith("test.class_heirarchy", JsonTypeName.class));
+        assertNull(ReflectionHelpers.getReflections(Collections.<String> emptyList()));
+        // a package on no classpath root at all scans nothing, rather than failing.
+        assertTrue(ReflectionHelpers.getTypesAnnotatedWith("no.such.pkg", JsonTypeName.class).isEmpty());
+    }
+
+    @Test
+    public void testClasspathUrlExclusions() throws Exception {
+        // com.clearcapital.oss.json.serializers is only in target/classes, not in target/test-classes.
+        // the exclusions are passed per call, since the process-wide ones would affect tests running alongside.
+        List<String> packageNames = Collections.singletonList("com.clearcapital.oss.json.serializers");
+        assertFalse(ReflectionHelpers.getReflections(packageNames).getConfiguration().getUrls().isEmpty());
+        assertTrue(ReflectionHelpers.getReflections(packageNames, Arrays.asList("/target/classes/$"))
+                .getConfiguration().getUrls().isEmpty());
+        assertFalse(ReflectionHelpers.getReflections(packageNames, Collections.<String> emptyList())
+                .getConfiguration().getUrls().isEmpty());
+        assertFalse(ReflectionHelpers.getReflections(packageNames).getConfiguration().getUrls().isEmpty());
+    }
+
+    @Test
+    public void testGetReflectionsMultiplePackages() throws Exception {
+        List<String> packageNames = Arrays.asList("test.class_heirarchy", "com.clearcapital.oss.json",
+                "com.clearcapital.oss.java");
+        ReflectionHelpers.clearReflectionsCache();
+        Reflections concurrent = ReflectionHelpers.getReflections(packageNames);
+
+        Reflections sequential = null;
+        for (String packageName : packageNames) {
+            Reflections packageReflections = new Reflections(ClasspathHelper.forPackage(packageName),
+                    new TypeAnnotationsScanner(), new SubTypesScanner());
+            if (sequential == null) {
+                sequential = packageReflections;
+            } else {
+                sequential.merge(packageReflections);
+            }
+        }
+        assertEquals(sequential.getStore().keySet(), concurrent.getStore().keySet());
+        for (String index : sequential.getStore().keySet()) {
+            assertEquals(sequential.getStore().get(index), concurrent.getStore().get(index));
+        }
+    }
+
 }
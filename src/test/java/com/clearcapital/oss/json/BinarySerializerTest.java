@@ -0,0 +1,115 @@
+package com.clearcapital.oss.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import test.class_heirarchy.BaseClass;
+import test.class_heirarchy.DerivedClass;
+
+public class BinarySerializerTest {
+
+    public static class Payload {
+
+        public BaseClass polymorphic;
+        public Long boxedLong;
+        public long primitiveLong;
+        public double fraction;
+        public Map<String, Integer> counts;
+        public ImmutableList<String> names;
+        public String absent;
+    }
+
+    private static Payload payload() {
+        DerivedClass derived = new DerivedClass();
+        derived.testMember = ImmutableList.of("a", "b");
+        derived.derivedMember = "derived";
+
+        Payload payload = new Payload();
+        payload.polymorphic = derived;
+        payload.boxedLong = Long.MAX_VALUE;
+        payload.primitiveLong = -42L;
+        payload.fraction = 0.25;
+        payload.counts = new HashMap<>();
+        payload.counts.put("zebra", 1);
+        payload.counts.put("apple", 2);
+        payload.counts.put(null, 3);
+        payload.names = ImmutableList.of("x", "y", "z");
+        return payload;
+    }
+
+    private static List<JsonSerializer> binarySerializers() {
+        return Arrays.<JsonSerializer> asList(SmileSerializer.getInstance(), CborSerializer.getInstance());
+    }
+
+    @Test
+    public void testRoundTripMatchesJson() throws Exception {
+        JsonSerializer json = JsonSerializer.getInstance();
+        Payload original = payload();
+        String expected = json.getStringRepresentation(original);
+
+        for (JsonSerializer binary : binarySerializers()) {
+            byte[] bytes = binary.getByteRepresentation(original);
+            assertTrue(bytes.length < expected.length());
+
+            Payload read = binary.getObjectFromBytes(bytes, Payload.class);
+            assertTrue(read.polymorphic instanceof DerivedClass);
+            // the graph read back from the binary format is the one read back from JSON.
+            assertEquals(expected, json.getStringRepresentation(read));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            binary.writeRepresentation(original, out);
+            assertEquals(expected, json.getStringRepresentation(
+                    binary.getObjectFromStream(new ByteArrayInputStream(out.toByteArray()), Payload.class)));
+        }
+    }
+
+    @Test
+    public void testTextFormsAreBase64() throws Exception {
+        JsonSerializer json = JsonSerializer.getInstance();
+        Payload original = payload();
+        String expected = json.getStringRepresentation(original);
+
+        for (JsonSerializer binary : binarySerializers()) {
+            String text = binary.getStringRepresentation(original);
+            assertTrue(text.matches("[A-Za-z0-9+/=]+"));
+            assertEquals(expected, json.getStringRepresentation(binary.getObject(text, Payload.class)));
+
+            StringWriter writer = new StringWriter();
+            binary.writeRepresentation(original, writer);
+            assertEquals(text, writer.toString());
+            assertEquals(expected, json.getStringRepresentation(
+                    binary.getObjectFromReader(new StringReader(writer.toString()), Payload.class)));
+
+            JsonCodec<Payload> codec = binary.getCodec(Payload.class);
+            assertEquals(text, codec.getStringRepresentation(original));
+            assertEquals(expected, json.getStringRepresentation(codec.getObject(text)));
+        }
+    }
+
+    @Test
+    public void testNoLines() throws Exception {
+        for (JsonSerializer binary : binarySerializers()) {
+            try {
+                binary.getLinesWriter(new ByteArrayOutputStream());
+                fail("expected UnsupportedOperationException");
+            } catch (UnsupportedOperationException e) {
+                // expected
+            }
+        }
+    }
+
+}
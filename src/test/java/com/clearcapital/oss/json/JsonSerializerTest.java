@@ -1,18 +1,144 @@
 package com.clearcapital.oss.json;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import com.clearcapital.oss.java.ReflectionHelpers;
+import com.clearcapital.oss.java.ReflectionPathSet;
+import com.clearcapital.oss.java.exceptions.DeserializingException;
+import com.clearcapital.oss.java.exceptions.ReflectionPathException;
+import com.clearcapital.oss.java.exceptions.SerializingException;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.primitives.Longs;
 
 import test.class_heirarchy.BaseClass;
 import test.class_heirarchy.DerivedClass;
+import test.class_heirarchy.UnnamedDerivedClass;
 
 public class JsonSerializerTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    public static class LongHolder {
+
+        public long primitive;
+        public Long boxed;
+        public long[] array;
+        public List<Long> list;
+    }
+
+    public static class Wide {
+
+        public String id;
+        public int count;
+        public String notes;
+        public Part main;
+        public List<Part> parts;
+        public Part kept;
+        public Map<String, String> attributes;
+        public BaseClass base;
+    }
+
+    public static class Order {
+
+        public String id;
+        public String note;
+    }
+
+    public static class Box<T> {
+
+        public T value;
+    }
+
+    public static class OrderBox extends Box<Order> {
+    }
+
+    public static class Shipment {
+
+        public OrderBox box;
+        public Order order;
+    }
+
+    public static class Formatted {
+
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd", timezone = "UTC")
+        public Date when;
+        @JsonSerialize(using = ToStringSerializer.class)
+        public Part part;
+        private String name;
+        public Part plain;
+
+        // the mapper writes what the getter returns, not the field.
+        public String getName() {
+            return name == null ? null : name.toUpperCase();
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+    }
+
+    public static class Part {
+
+        public String name;
+        public String detail;
+        public Part child;
+    }
+
 	@Test
 	public void testImmutableList() throws Exception {
 		BaseClass original = new BaseClass();
@@ -43,4 +169,522 @@ public class JsonSerializerTest {
         assertEquals(original.derivedMember, ((DerivedClass) deserialized).derivedMember);
     }
 
+    @Test
+    public void testTypeIndexWrittenAtCompileTime() throws Exception {
+        // the test sources are compiled with JsonTypeIndexProcessor on the classpath.
+        Set<Class<?>> types = JsonTypeIndex.findTypes(getClass().getClassLoader(), Collections.<URL> emptyList());
+        assertTrue(types.contains(BaseClass.class));
+        assertTrue(types.contains(DerivedClass.class));
+        // subclasses are listed too, annotated or not, as the classpath scan would find them.
+        assertTrue(types.contains(UnnamedDerivedClass.class));
+    }
+
+    @Test
+    public void testTypeIndexMergedAcrossCompiles() throws Exception {
+        File output = folder.newFolder("classes");
+        compile(output, source("p.A", "@com.fasterxml.jackson.annotation.JsonTypeName(\"a\") public class A {}"),
+                source("p.B", "public class B extends A {}"));
+        assertEquals(ImmutableSet.of("p.A", "p.B"), readIndex(output));
+
+        // an incremental compile of one more type keeps the types compiled before.
+        compile(output, source("p.C", "public class C extends B { public static class D extends C {} }"));
+        assertEquals(ImmutableSet.of("p.A", "p.B", "p.C", "p.C$D"), readIndex(output));
+
+        // names which no longer resolve are dropped, even by a compile which finds no types of its own.
+        File index = new File(output, JsonTypeIndex.INDEX_RESOURCE);
+        Files.write(index.toPath(), Arrays.asList("p.A", "p.B", "p.C", "p.C$D", "p.Gone"), StandardCharsets.UTF_8);
+        compile(output, source("p.E", "public class E {}"));
+        assertEquals(ImmutableSet.of("p.A", "p.B", "p.C", "p.C$D"), readIndex(output));
+    }
+
+    private static Set<String> readIndex(final File output) throws IOException {
+        return JsonTypeIndex.readNames(new File(output, JsonTypeIndex.INDEX_RESOURCE).toURI().toURL());
+    }
+
+    private static JavaFileObject source(final String className, final String body) {
+        String packageName = className.substring(0, className.lastIndexOf('.'));
+        URI uri = URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension);
+        return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+
+            @Override
+            public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+                return "package " + packageName + "; " + body;
+            }
+        };
+    }
+
+    private static void compile(final File output, final JavaFileObject... sources) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        String classpath = output.getPath() + File.pathSeparator
+                + new File(JsonTypeName.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+        StringWriter diagnostics = new StringWriter();
+        CompilationTask task = compiler.getTask(diagnostics, null, null,
+                Arrays.asList("-d", output.getPath(), "-classpath", classpath), null, Arrays.asList(sources));
+        task.setProcessors(Collections.singletonList(new JsonTypeIndexProcessor()));
+        assertTrue(diagnostics.toString(), task.call());
+    }
+
+    @Test
+    public void testTypeIndexMissing() throws Exception {
+        assertTrue(JsonTypeIndex.findTypes(new ClassLoader(null) {
+        }, Collections.<URL> emptyList()).isEmpty());
+    }
+
+    @Test
+    public void testTypeIndexMergedWithScan() throws Exception {
+        // one root with an index listing BaseClass, and one compiled without the processor, holding DerivedClass.
+        File indexed = folder.newFolder("indexed");
+        File unindexed = folder.newFolder("unindexed");
+        copyClass(BaseClass.class, indexed);
+        File index = new File(indexed, JsonTypeIndex.INDEX_RESOURCE);
+        index.getParentFile().mkdirs();
+        Files.write(index.toPath(), Collections.singletonList(BaseClass.class.getName()), StandardCharsets.UTF_8);
+        copyClass(DerivedClass.class, unindexed);
+
+        List<URL> roots = Arrays.asList(indexed.toURI().toURL(), unindexed.toURI().toURL());
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader classLoader = new URLClassLoader(roots.toArray(new URL[0]), null)) {
+            // scanned types are loaded through the context class loader.
+            Thread.currentThread().setContextClassLoader(classLoader);
+            Set<String> names = new HashSet<>();
+            for (Class<?> type : JsonTypeIndex.findTypes(classLoader, roots)) {
+                names.add(type.getName());
+            }
+            assertEquals(ImmutableSet.of(BaseClass.class.getName(), DerivedClass.class.getName()), names);
+        } finally {
+            Thread.currentThread().setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    private static void copyClass(final Class<?> type, final File root) throws IOException {
+        String path = type.getName().replace('.', '/') + ".class";
+        File target = new File(root, path);
+        target.getParentFile().mkdirs();
+        try (InputStream in = type.getClassLoader().getResourceAsStream(path)) {
+            Files.copy(in, target.toPath());
+        }
+    }
+
+    @Test
+    public void testStreams() throws Exception {
+        DerivedClass original = new DerivedClass();
+        original.testMember = ImmutableList.<String> of("Foo");
+        original.derivedMember = "Bar";
+        JsonSerializer serializer = JsonSerializer.getInstance();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        serializer.writeRepresentation(original, bytes);
+        assertEquals(serializer.getStringRepresentation(original), bytes.toString("UTF-8"));
+        assertArrayEquals(bytes.toByteArray(), serializer.getByteRepresentation(original));
+
+        // the streams belong to the caller, so neither side closes them.
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes.toByteArray()) {
+
+            @Override
+            public void close() {
+                fail("closed the input stream");
+            }
+        };
+        BaseClass deserialized = serializer.getObjectFromStream(in, BaseClass.class);
+        assertTrue(deserialized instanceof DerivedClass);
+        assertEquals("Bar", ((DerivedClass) deserialized).derivedMember);
+
+        StringWriter writer = new StringWriter();
+        serializer.writeRepresentation(original, writer);
+        assertEquals(bytes.toString("UTF-8"), writer.toString());
+        DerivedClass fromReader = serializer.getObjectFromReader(new StringReader(writer.toString()),
+                DerivedClass.class);
+        assertEquals(original.testMember, fromReader.testMember);
+
+        byte[] array = ("[" + writer + "]").getBytes("UTF-8");
+        List<DerivedClass> list = serializer.getObjectFromBytes(array, new TypeReference<List<DerivedClass>>() {
+        });
+        assertEquals("Bar", list.get(0).derivedMember);
+
+        serializer.writeRepresentation(null, writer);
+        assertEquals(bytes.toString("UTF-8"), writer.toString());
+        assertNull(serializer.getObjectFromStream(null, BaseClass.class));
+    }
+
+    @Test(expected = DeserializingException.class)
+    public void testStreamMalformed() throws Exception {
+        JsonSerializer.getInstance().getObjectFromStream(new ByteArrayInputStream("{\"testMember\":".getBytes(
+                "UTF-8")), BaseClass.class);
+    }
+
+    @Test
+    public void testGetObjectsFromArray() throws Exception {
+        byte[] json = "[{\"@type\":\"derived\",\"derivedMember\":\"a\"},{\"@type\":\"base\"}]".getBytes("UTF-8");
+        MappingIterator<BaseClass> values = JsonSerializer.getInstance().getObjects(new ByteArrayInputStream(json),
+                BaseClass.class);
+        assertEquals("a", ((DerivedClass) values.next()).derivedMember);
+        assertEquals(BaseClass.class, values.next().getClass());
+        assertFalse(values.hasNext());
+    }
+
+    @Test
+    public void testLinesRoundTrip() throws Exception {
+        JsonSerializer serializer = JsonSerializer.getInstance();
+        List<DerivedClass> originals = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            DerivedClass original = new DerivedClass();
+            original.derivedMember = "member" + i;
+            originals.add(original);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonLinesWriter writer = serializer.getLinesWriter(out)) {
+            writer.writeAll(originals);
+        }
+        String lines = out.toString("UTF-8");
+        assertEquals(serializer.getStringRepresentation(originals.get(0)) + "\n", lines.substring(0,
+                lines.indexOf('\n') + 1));
+        assertEquals(3, lines.split("\n").length);
+        assertTrue(lines.endsWith("\n"));
+
+        try (Stream<DerivedClass> values = serializer.getObjectStream(new StringReader(lines), DerivedClass.class)) {
+            assertEquals(Arrays.asList("member0", "member1", "member2"),
+                    values.map(value -> value.derivedMember).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testCodec() throws Exception {
+        JsonSerializer serializer = JsonSerializer.getInstance();
+        JsonCodec<BaseClass> codec = serializer.getCodec(BaseClass.class);
+        BaseClass base = new BaseClass();
+        base.testMember = ImmutableList.<String> of("Foo");
+        DerivedClass derived = new DerivedClass();
+        derived.derivedMember = "Bar";
+
+        // written by runtime class, as getStringRepresentation does.
+        assertEquals(serializer.getStringRepresentation(base), codec.getStringRepresentation(base));
+        assertEquals(serializer.getStringRepresentation(derived), codec.getStringRepresentation(derived));
+        assertEquals(serializer.getStringRepresentation(base), codec.getStringRepresentation(base));
+
+        BaseClass read = codec.getObject(codec.getByteRepresentation(derived));
+        assertEquals("Bar", ((DerivedClass) read).derivedMember);
+        assertEquals(base.testMember, codec.getObject(codec.getStringRepresentation(base)).testMember);
+        assertNull(codec.getObject((String) null));
+
+        JsonCodec<List<String>> listCodec = serializer.getCodec(new TypeReference<List<String>>() {
+        });
+        assertEquals(Arrays.asList("a", "b"), listCodec.getObject(new StringReader("[\"a\",\"b\"]")));
+    }
+
+    @Test
+    public void testReadersAndWritersCached() throws Exception {
+        JsonSerializer serializer = new JsonSerializer();
+        assertTrue(serializer.getReader(BaseClass.class) == serializer.getReader(BaseClass.class));
+        assertTrue(serializer.getReader(new TypeReference<List<String>>() {
+        }.getType()) == serializer.getReader(new TypeReference<List<String>>() {
+        }.getType()));
+        assertTrue(serializer.getWriter(BaseClass.class) == serializer.getWriter(BaseClass.class));
+    }
+
+    @Test
+    public void testPrewarm() throws Exception {
+        Future<JsonSerializer> warmup = JsonSerializer.prewarm(DerivedClass.class);
+        assertTrue(warmup.get() == JsonSerializer.getInstance());
+        assertTrue(JsonSerializer.isWarm());
+
+        JsonSerializer serializer = new JsonSerializer();
+        ObjectReader reader = serializer.warm(DerivedClass.class).getReader(DerivedClass.class);
+        assertTrue(reader == serializer.getReader(DerivedClass.class));
+    }
+
+    @Test
+    public void testByteBuffers() throws Exception {
+        JsonSerializer serializer = JsonSerializer.getInstance();
+        DerivedClass original = new DerivedClass();
+        original.derivedMember = "Bar";
+        byte[] expected = serializer.getByteRepresentation(original);
+
+        for (ByteBuffer target : Arrays.asList(ByteBuffer.allocate(1024), ByteBuffer.allocateDirect(1024))) {
+            target.put((byte) '#');
+            assertEquals(expected.length, serializer.writeRepresentation(original, target));
+            assertEquals(1 + expected.length, target.position());
+            byte[] written = new byte[expected.length];
+            target.flip();
+            target.get();
+            target.get(written);
+            assertArrayEquals(expected, written);
+        }
+
+        ByteBuffer tooSmall = ByteBuffer.allocate(expected.length - 1);
+        try {
+            serializer.writeRepresentation(original, tooSmall);
+            fail("expected SerializingException");
+        } catch (SerializingException e) {
+            assertEquals(0, tooSmall.position());
+        }
+
+        // outgrows the initial pooled buffer.
+        StringBuilder large = new StringBuilder();
+        while (large.length() <= JsonSerializer.INITIAL_POOLED_BUFFER_SIZE) {
+            large.append("0123456789");
+        }
+        original.derivedMember = large.toString();
+        ByteBuffer pooled = serializer.getPooledRepresentation(original);
+        assertTrue(pooled.isDirect());
+        byte[] pooledBytes = new byte[pooled.remaining()];
+        pooled.get(pooledBytes);
+        assertArrayEquals(serializer.getByteRepresentation(original), pooledBytes);
+        assertTrue(pooled == serializer.getPooledRepresentation(original));
+
+        // past the largest pooled size, the representation comes back on the heap and the pooled buffer is kept.
+        while (large.length() <= JsonSerializer.MAX_POOLED_BUFFER_SIZE) {
+            large.append(large);
+        }
+        original.derivedMember = large.toString();
+        ByteBuffer unpooled = serializer.getPooledRepresentation(original);
+        assertFalse(unpooled.isDirect());
+        assertArrayEquals(serializer.getByteRepresentation(original), unpooled.array());
+        original.derivedMember = "Bar";
+        assertTrue(pooled == serializer.getPooledRepresentation(original));
+    }
+
+    @Test
+    public void testPathsOverSerializedTrees() throws Exception {
+        LongHolder longs = new LongHolder();
+        longs.primitive = Long.MIN_VALUE;
+        longs.boxed = 2L;
+        longs.array = new long[] { 0, 1234567890123L };
+        JsonSerializer serializer = JsonSerializer.getInstance();
+        JsonNode tree = serializer.getObject(serializer.getStringRepresentation(longs), JsonNode.class);
+
+        // longs come back as text nodes, which typed reads parse.
+        assertTrue(tree.get("primitive").isTextual());
+        assertEquals(Long.MIN_VALUE, ReflectionHelpers.getLongValue(tree, Arrays.asList("primitive")));
+        assertEquals(1234567890123L, ReflectionHelpers.getLongValue(tree, Arrays.asList("array", "{1}")));
+        assertEquals(2, ReflectionHelpers.getIntValue(tree, Arrays.asList("boxed")));
+        try {
+            ReflectionHelpers.getIntValue(tree, Arrays.asList("primitive"));
+            fail("expected ReflectionPathException");
+        } catch (ReflectionPathException e) {
+            // out of range for an int.
+        }
+
+        JsonNode numbers = serializer.getObject("{\"whole\":2,\"text\":\"x\"}", JsonNode.class);
+        assertEquals(2.0, ReflectionHelpers.getDoubleValue(numbers, Arrays.asList("whole")), 0);
+        try {
+            ReflectionHelpers.getLongValue(numbers, Arrays.asList("text"));
+            fail("expected ReflectionPathException");
+        } catch (ReflectionPathException e) {
+            // not a number.
+        }
+    }
+
+    @Test
+    public void testLongsAsStrings() throws Exception {
+        LongHolder longs = new LongHolder();
+        longs.primitive = Long.MIN_VALUE;
+        longs.boxed = Long.MAX_VALUE;
+        longs.array = new long[] { 0, -1, 1234567890123L };
+        longs.list = Longs.asList(7, -8);
+
+        String json = JsonSerializer.getInstance().getStringRepresentation(longs);
+        assertEquals("{\"primitive\":\"-9223372036854775808\",\"boxed\":\"9223372036854775807\","
+                + "\"array\":[\"0\",\"-1\",\"1234567890123\"],\"list\":[\"7\",\"-8\"]}", json);
+
+        LongHolder read = JsonSerializer.getInstance().getObject(json, LongHolder.class);
+        assertEquals(Long.MIN_VALUE, read.primitive);
+        assertEquals(Long.valueOf(Long.MAX_VALUE), read.boxed);
+        assertArrayEquals(longs.array, read.array);
+        assertEquals(longs.list, read.list);
+
+        // numbers, padded strings and nulls are still read.
+        LongHolder lenient = JsonSerializer.getInstance().getObject(
+                "{\"primitive\":12,\"boxed\":\" 34 \",\"array\":[5,\"+6\",null]}", LongHolder.class);
+        assertEquals(12L, lenient.primitive);
+        assertEquals(Long.valueOf(34), lenient.boxed);
+        assertArrayEquals(new long[] { 5, 6, 0 }, lenient.array);
+    }
+
+    @Test(expected = DeserializingException.class)
+    public void testLongOutOfRange() throws Exception {
+        JsonSerializer.getInstance().getObject("{\"boxed\":\"9223372036854775808\"}", LongHolder.class);
+    }
+
+    @Test
+    public void testLongsAsNumbers() throws Exception {
+        JsonSerializer serializer = JsonSerializer.builder().longsAsStrings(false).build();
+        LongHolder longs = new LongHolder();
+        longs.primitive = 1;
+        longs.boxed = Long.MAX_VALUE;
+        longs.array = new long[] { 2 };
+
+        String json = serializer.getStringRepresentation(longs);
+        assertEquals("{\"primitive\":1,\"boxed\":9223372036854775807,\"array\":[2]}", json);
+        assertEquals(Long.valueOf(Long.MAX_VALUE), serializer.getObject(json, LongHolder.class).boxed);
+        assertEquals(1L, serializer.getObject("{\"primitive\":\"1\"}", LongHolder.class).primitive);
+    }
+
+    @Test
+    public void testMapOrdering() throws Exception {
+        Map<String, Integer> unordered = new LinkedHashMap<>();
+        unordered.put("b", 1);
+        unordered.put("c", 2);
+        unordered.put("a", 3);
+        assertEquals("{\"a\":3,\"b\":1,\"c\":2}", JsonSerializer.getInstance().getStringRepresentation(unordered));
+
+        // a SortedMap is written in its own order, without being copied and re-sorted.
+        SortedMap<String, Integer> reversed = new TreeMap<>(Collections.reverseOrder());
+        reversed.putAll(unordered);
+        assertEquals("{\"c\":2,\"b\":1,\"a\":3}", JsonSerializer.getInstance().getStringRepresentation(reversed));
+        assertEquals("{\"a\":3,\"b\":1,\"c\":2}",
+                JsonSerializer.getInstance().getStringRepresentation(ImmutableSortedMap.copyOf(unordered)));
+
+        JsonSerializer unsorted = JsonSerializer.builder().sortMapKeys(false).build();
+        assertEquals("{\"b\":1,\"c\":2,\"a\":3}", unsorted.getStringRepresentation(unordered));
+    }
+
+    @Test
+    public void testPathExtraction() throws Exception {
+        String json = "{\"id\":\"12\",\"skip\":{\"deep\":[1,2,{\"x\":null}]},\"people\":[{\"name\":\"a\"},"
+                + "{\"name\":\"b\",\"tags\":{\"k\":[true]}}],\"n\":null}";
+        JsonPathExtractor extractor = JsonSerializer.getInstance().getPathExtractor(ReflectionPathSet.compile(
+                Arrays.asList(Arrays.asList("people", "{1}", "name"), Arrays.asList("people", "{1}", "tags", "[k]"),
+                        Arrays.asList("people", "{1}", "tags"), Arrays.asList("missing"), Arrays.asList("n", "x"),
+                        Arrays.asList("people", "{5}"), Arrays.asList("id", "x"))));
+        Object[] values = extractor.getValues(json);
+        assertEquals("b", values[0]);
+        assertEquals(Arrays.asList(true), values[1]);
+        assertEquals(Collections.singletonMap("k", Arrays.asList(true)), values[2]);
+        assertEquals(Arrays.asList(null, null, null, null), Arrays.asList(values).subList(3, 7));
+        assertArrayEquals(values, extractor.getValues(new ByteArrayInputStream(json.getBytes("UTF-8"))));
+        assertNull(extractor.getValues((String) null));
+
+        assertEquals(Long.valueOf(12), JsonSerializer.getInstance().getFieldValue(json, Arrays.asList("id"),
+                Long.class));
+        // reading stops once every path has been found, so what follows isn't parsed.
+        assertEquals("a", JsonSerializer.getInstance().getFieldValue("{\"name\":\"a\",\"rest\":[}", Arrays.asList(
+                "name"), String.class));
+    }
+
+    @Test
+    public void testProjection() throws Exception {
+        String json = "{\"id\":\"w\",\"count\":3,\"notes\":\"long\",\"main\":{\"name\":\"m\",\"detail\":\"d\"},"
+                + "\"parts\":[{\"name\":\"p0\",\"detail\":\"d0\"},{\"name\":\"p1\",\"child\":{\"name\":\"c\"}}],"
+                + "\"kept\":{\"name\":\"k\",\"detail\":\"kd\",\"child\":{\"detail\":\"cd\"}}}";
+        JsonSerializer serializer = JsonSerializer.getInstance();
+        JsonCodec<Wide> idOnly = serializer.getProjection(Wide.class, ReflectionPathSet.compile(Arrays.asList(Arrays
+                .asList("id"), Arrays.asList("main", "name"))));
+        Wide wide = idOnly.getObject(json);
+        assertEquals("w", wide.id);
+        assertEquals(0, wide.count);
+        assertNull(wide.notes);
+        assertNull(wide.parts);
+        assertEquals("m", wide.main.name);
+        assertNull(wide.main.detail);
+        assertEquals("w", serializer.getProjection(Wide.class, ReflectionPathSet.compile(Arrays.asList(Arrays
+                .asList("id"), Arrays.asList("main", "name")))).getObject(json).id);
+
+        // Part is selected whole under "kept", so it isn't stripped anywhere.
+        Wide withKept = serializer.getProjection(Wide.class, ReflectionPathSet.compile(Arrays.asList(Arrays.asList(
+                "parts", "{1}", "name"), Arrays.asList("kept")))).getObject(json);
+        assertNull(withKept.id);
+        assertEquals("p1", withKept.parts.get(1).name);
+        assertEquals("d0", withKept.parts.get(0).detail);
+        assertEquals("cd", withKept.kept.child.detail);
+    }
+
+    @Test
+    public void testProjectionGenericSuperclass() throws Exception {
+        String json = "{\"box\":{\"value\":{\"id\":\"b\",\"note\":\"bn\"}},"
+                + "\"order\":{\"id\":\"o\",\"note\":\"on\"}}";
+        JsonSerializer serializer = JsonSerializer.getInstance();
+        // Order occurs inside box, which is selected whole, by way of the type variable of Box.
+        Shipment whole = serializer.getProjection(Shipment.class, ReflectionPathSet.compile(Arrays.asList(Arrays
+                .asList("box"), Arrays.asList("order", "id")))).getObject(json);
+        assertEquals("bn", whole.box.value.note);
+        assertEquals("on", whole.order.note);
+
+        Shipment ids = serializer.getProjection(Shipment.class, ReflectionPathSet.compile(Arrays.asList(Arrays
+                .asList("box", "value", "id")))).getObject(json);
+        assertEquals("b", ids.box.value.id);
+        assertNull(ids.box.value.note);
+        assertNull(ids.order);
+    }
+
+    @Test(expected = ReflectionPathException.class)
+    public void testProjectionFieldNotDeclared() throws Exception {
+        JsonSerializer.getInstance().getProjection(Wide.class, ReflectionPathSet.compile(Arrays.asList(Arrays.asList(
+                "main", "missing"))));
+    }
+
+    @Test
+    public void testMergePatch() throws Exception {
+        JsonSerializer serializer = JsonSerializer.getInstance();
+        Wide original = new Wide();
+        original.id = "w";
+        original.count = 3;
+        original.main = new Part();
+        original.main.name = "m";
+        original.main.detail = "d";
+        original.parts = Arrays.asList(new Part());
+        original.attributes = new LinkedHashMap<>();
+        original.attributes.put("a", "1");
+        original.attributes.put("b", "2");
+        original.base = new BaseClass();
+        String originalJson = serializer.getStringRepresentation(original);
+        assertEquals("{}", serializer.getMergePatch(original, serializer.getObject(originalJson, Wide.class)));
+
+        Wide modified = serializer.getObject(originalJson, Wide.class);
+        modified.count = 4;
+        modified.notes = "n";
+        modified.main.detail = null;
+        modified.attributes.remove("a");
+        modified.attributes.put("c", "3");
+        DerivedClass derived = new DerivedClass();
+        derived.derivedMember = "x";
+        modified.base = derived;
+        String patch = serializer.getMergePatch(original, modified);
+        assertEquals("{\"count\":4,\"notes\":\"n\",\"main\":{\"detail\":null},\"attributes\":{\"a\":null,"
+                + "\"c\":\"3\"},\"base\":{\"@type\":\"derived\",\"derivedMember\":\"x\"}}", patch);
+
+        Wide target = serializer.getObject(originalJson, Wide.class);
+        Part main = target.main;
+        serializer.applyMergePatch(target, patch);
+        assertTrue(main == target.main);
+        assertTrue(target.base instanceof DerivedClass);
+        assertEquals(serializer.getStringRepresentation(modified), serializer.getStringRepresentation(target));
+    }
+
+    @Test
+    public void testMergePatchWrittenAsProperties() throws Exception {
+        JsonSerializer serializer = JsonSerializer.getInstance();
+        Formatted original = new Formatted();
+        original.when = new Date(0);
+        original.part = new Part();
+        original.name = "a";
+        original.plain = new Part();
+        Formatted modified = new Formatted();
+        modified.when = new Date(86400000L);
+        modified.part = new Part();
+        modified.name = "b";
+        modified.plain = new Part();
+        modified.plain.name = "p";
+
+        // each changed member is written as in the full representation.
+        JsonNode full = serializer.getObject(serializer.getStringRepresentation(modified), JsonNode.class);
+        JsonNode patch = serializer.getObject(serializer.getMergePatch(original, modified), JsonNode.class);
+        assertEquals("1970-01-02", patch.get("when").textValue());
+        assertEquals(ImmutableSet.of("when", "part", "name", "plain"), ImmutableSet.copyOf(patch.fieldNames()));
+        for (String name : Arrays.asList("when", "part", "name", "plain")) {
+            assertEquals(full.get(name), patch.get(name));
+        }
+
+        modified.name = null;
+        modified.when = original.when;
+        modified.part = original.part;
+        modified.plain = original.plain;
+        assertEquals("{\"name\":null}", serializer.getMergePatch(original, modified));
+    }
+
+    @Test(expected = DeserializingException.class)
+    public void testMergePatchNotAnObject() throws Exception {
+        JsonSerializer.getInstance().applyMergePatch(new Wide(), "[1]");
+    }
+
 }
@@ -0,0 +1,6 @@
+package test.class_heirarchy;
+
+public class UnnamedDerivedClass extends BaseClass {
+
+    public String unnamedMember;
+}